@@ -0,0 +1,490 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+
+/**
+ * IGraph that interns vertex names to dense int ids and keeps the edges in
+ * compressed sparse row form, with an int adjacency API so algorithms can
+ * walk the graph without a Pair or a String per edge.
+ *
+ * Every vertex has an id from 0 to getIdBound() - 1, and two rows: the
+ * heads of its outgoing edges and the tails of its incoming edges. Each
+ * direction's rows share one int slab; a row that fills up moves to the end
+ * of its slab with twice the room, and the space it leaves is counted as
+ * garbage; once garbage outweighs the live rows the slab is compacted.
+ *
+ * Every entry also holds its twin: where the same edge sits in the row of
+ * the other end. Deleting an edge moves each row's last entry into the
+ * hole and fixes that entry's twin, so it costs O(1) once the edge is
+ * found, and finding it scans the shorter of the tail's outgoing and the
+ * head's incoming row. deleteVertex() removes the vertex's own rows and
+ * nothing else, so it costs the vertex's degree rather than the graph's
+ * size. Rows are unordered.
+ *
+ * Ids of deleted vertices are handed out again, so the id range stays as
+ * dense as the graph. Only the IGraph methods and getIncomingEdges()
+ * allocate: they build their Pairs when asked, and getVertices() copies
+ * the names.
+ */
+public final class CompactGraph implements IGraph {
+    /** Room a row gets the first time an entry is added to it. */
+    private static final int FIRST_ROW_CAPACITY = 2;
+
+    /** Ids a new graph has room for. */
+    private static final int FIRST_ID_CAPACITY = 16;
+
+    /**
+     * The rows of one direction: for every id, the ids at the other end of
+     * its edges and each edge's twin, the edge's index in that end's row of
+     * the other direction.
+     */
+    private static final class Rows {
+        /** Position of every row in the slab. */
+        private int[] mStart;
+
+        /** Number of entries in every row. */
+        private int[] mCount;
+
+        /** Room of every row. */
+        private int[] mCapacity;
+
+        /** Id at the other end of every entry, one row after another with gaps. */
+        private int[] mIds;
+
+        /** Twin of every entry, at the same positions as mIds. */
+        private int[] mTwins;
+
+        /** End of the used part of the slab. */
+        private int mSize;
+
+        /** Room in the used part of the slab that no row owns. */
+        private int mGarbage;
+
+        /**
+         * @param ids Number of ids to make room for
+         */
+        Rows(final int ids) {
+            mStart = new int[ids];
+            mCount = new int[ids];
+            mCapacity = new int[ids];
+            mIds = new int[4 * ids];
+            mTwins = new int[4 * ids];
+        }
+
+        /**
+         * Make room for more ids.
+         * @param ids New number of ids
+         */
+        void grow(final int ids) {
+            mStart = Arrays.copyOf(mStart, ids);
+            mCount = Arrays.copyOf(mCount, ids);
+            mCapacity = Arrays.copyOf(mCapacity, ids);
+        }
+
+        /**
+         * @param row Row
+         * @return Number of entries
+         */
+        int count(final int row) {
+            return mCount[row];
+        }
+
+        /**
+         * @param row Row
+         * @param k Index in the row
+         * @return Id at the other end of the entry
+         */
+        int id(final int row, final int k) {
+            return mIds[mStart[row] + k];
+        }
+
+        /**
+         * @param row Row
+         * @param k Index in the row
+         * @return Index of the same edge in the other end's row
+         */
+        int twin(final int row, final int k) {
+            return mTwins[mStart[row] + k];
+        }
+
+        /**
+         * @param row Row
+         * @param k Index in the row
+         * @param twin New index of the same edge in the other end's row
+         */
+        void setTwin(final int row, final int k, final int twin) {
+            mTwins[mStart[row] + k] = twin;
+        }
+
+        /**
+         * Position of an id in a row.
+         * @param row Row
+         * @param id Id to find
+         * @return Its index in the row, or -1
+         */
+        int find(final int row, final int id) {
+            int start = mStart[row];
+
+            for (int k = 0; k < mCount[row]; k += 1) {
+                if (mIds[start + k] == id) {
+                    return k;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Add an entry at the end of a row.
+         * @param row Row
+         * @param id Id at the other end
+         * @param twin Index of the same edge in the other end's row
+         */
+        void append(final int row, final int id, final int twin) {
+            if (mCount[row] == mCapacity[row]) {
+                move(row, Math.max(FIRST_ROW_CAPACITY, 2 * mCapacity[row]));
+            }
+
+            mIds[mStart[row] + mCount[row]] = id;
+            mTwins[mStart[row] + mCount[row]] = twin;
+            mCount[row] += 1;
+        }
+
+        /**
+         * Remove an entry by moving the row's last entry into its place. The
+         * caller fixes the moved entry's twin.
+         * @param row Row
+         * @param k Index of the entry
+         */
+        void removeAt(final int row, final int k) {
+            int last = mStart[row] + mCount[row] - 1;
+
+            mIds[mStart[row] + k] = mIds[last];
+            mTwins[mStart[row] + k] = mTwins[last];
+            mCount[row] -= 1;
+        }
+
+        /**
+         * Give up the room of an empty row.
+         * @param row Row
+         */
+        void release(final int row) {
+            mGarbage += mCapacity[row];
+            mStart[row] = 0;
+            mCount[row] = 0;
+            mCapacity[row] = 0;
+        }
+
+        /**
+         * Move a row to the end of the slab with more room, compacting the
+         * slab first if most of it is garbage.
+         * @param row Row
+         * @param capacity Room of the moved row
+         */
+        private void move(final int row, final int capacity) {
+            if (mGarbage > mSize - mGarbage) {
+                compact();
+            }
+
+            if (mSize + capacity > mIds.length) {
+                int length = Math.max(2 * mIds.length, mSize + capacity);
+
+                mIds = Arrays.copyOf(mIds, length);
+                mTwins = Arrays.copyOf(mTwins, length);
+            }
+
+            System.arraycopy(mIds, mStart[row], mIds, mSize, mCount[row]);
+            System.arraycopy(mTwins, mStart[row], mTwins, mSize, mCount[row]);
+            mGarbage += mCapacity[row];
+            mStart[row] = mSize;
+            mCapacity[row] = capacity;
+            mSize += capacity;
+        }
+
+        /**
+         * Copy every row into a new slab with no gaps between them.
+         */
+        private void compact() {
+            int length = Math.max(mIds.length / 2, mSize - mGarbage);
+            int[] ids = new int[length];
+            int[] twins = new int[length];
+            int size = 0;
+
+            for (int row = 0; row < mStart.length; row += 1) {
+                System.arraycopy(mIds, mStart[row], ids, size, mCount[row]);
+                System.arraycopy(mTwins, mStart[row], twins, size, mCount[row]);
+                mStart[row] = size;
+                size += mCapacity[row];
+            }
+
+            mIds = ids;
+            mTwins = twins;
+            mSize = size;
+            mGarbage = 0;
+        }
+    }
+
+    /** Id of every vertex by name. */
+    private final Map<String, Integer> mIdsByName;
+
+    /** Name of every id, null for ids not in use. */
+    private String[] mNames;
+
+    /** Ids not in use below mIdBound, the first mFreeCount are valid. */
+    private int[] mFree;
+
+    /** Number of ids in mFree. */
+    private int mFreeCount;
+
+    /** One past the largest id ever handed out. */
+    private int mIdBound;
+
+    /** Heads of every vertex's outgoing edges. */
+    private final Rows mOut;
+
+    /** Tails of every vertex's incoming edges. */
+    private final Rows mIn;
+
+    /**
+     * Create an empty graph.
+     */
+    public CompactGraph() {
+        mIdsByName = new HashMap<String, Integer>();
+        mNames = new String[FIRST_ID_CAPACITY];
+        mFree = new int[FIRST_ID_CAPACITY];
+        mOut = new Rows(FIRST_ID_CAPACITY);
+        mIn = new Rows(FIRST_ID_CAPACITY);
+    }
+
+    /**
+     * @param v Vertex name
+     * @return Its id, or -1 if the graph doesn't have it
+     */
+    public int getId(final String v) {
+        Integer id = mIdsByName.get(v);
+
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id Vertex id
+     * @return Its name, or null if the id isn't in use
+     */
+    public String getName(final int id) {
+        return mNames[id];
+    }
+
+    /**
+     * @return One past the largest id in use or free; arrays indexed by id
+     *         need this many entries
+     */
+    public int getIdBound() {
+        return mIdBound;
+    }
+
+    /**
+     * @param id Vertex id
+     * @return Number of its outgoing edges
+     */
+    public int getOutDegree(final int id) {
+        return mOut.count(id);
+    }
+
+    /**
+     * @param id Vertex id
+     * @param k Index from 0 to getOutDegree(id) - 1
+     * @return Id of the head of one of its outgoing edges
+     */
+    public int getSuccessor(final int id, final int k) {
+        return mOut.id(id, k);
+    }
+
+    /**
+     * @param id Vertex id
+     * @return Number of its incoming edges
+     */
+    public int getInDegree(final int id) {
+        return mIn.count(id);
+    }
+
+    /**
+     * @param id Vertex id
+     * @param k Index from 0 to getInDegree(id) - 1
+     * @return Id of the tail of one of its incoming edges
+     */
+    public int getPredecessor(final int id, final int k) {
+        return mIn.id(id, k);
+    }
+
+    @Override
+    public void addVertex(final String v) {
+        if (mIdsByName.containsKey(v)) {
+            return;
+        }
+
+        int id;
+
+        if (mFreeCount > 0) {
+            mFreeCount -= 1;
+            id = mFree[mFreeCount];
+        } else {
+            if (mIdBound == mNames.length) {
+                int capacity = 2 * mIdBound;
+
+                mNames = Arrays.copyOf(mNames, capacity);
+                mFree = Arrays.copyOf(mFree, capacity);
+                mOut.grow(capacity);
+                mIn.grow(capacity);
+            }
+
+            id = mIdBound;
+            mIdBound += 1;
+        }
+
+        mNames[id] = v;
+        mIdsByName.put(v, id);
+    }
+
+    @Override
+    public void addEdge(final Pair<String, String> e) {
+        int tail = getId(e.first);
+        int head = getId(e.second);
+
+        if (tail == -1 || head == -1 || find(tail, head) != -1) {
+            return;
+        }
+
+        mOut.append(tail, head, mIn.count(head));
+        mIn.append(head, tail, mOut.count(tail) - 1);
+    }
+
+    @Override
+    public Collection<String> getVertices() {
+        return new ArrayList<String>(mIdsByName.keySet());
+    }
+
+    @Override
+    public Collection<Pair<String, String>> getOutgoingEdges(final String v) {
+        int id = getId(v);
+
+        if (id == -1) {
+            return null;
+        }
+
+        List<Pair<String, String>> edges = new ArrayList<Pair<String, String>>(mOut.count(id));
+
+        for (int k = 0; k < mOut.count(id); k += 1) {
+            edges.add(new Pair<String, String>(v, mNames[mOut.id(id, k)]));
+        }
+
+        return edges;
+    }
+
+    /**
+     * The edges into a vertex, the reverse of getOutgoingEdges().
+     * @param v Vertex name
+     * @return Every edge u -> v, or null if the graph doesn't have v
+     */
+    public Collection<Pair<String, String>> getIncomingEdges(final String v) {
+        int id = getId(v);
+
+        if (id == -1) {
+            return null;
+        }
+
+        List<Pair<String, String>> edges = new ArrayList<Pair<String, String>>(mIn.count(id));
+
+        for (int k = 0; k < mIn.count(id); k += 1) {
+            edges.add(new Pair<String, String>(mNames[mIn.id(id, k)], v));
+        }
+
+        return edges;
+    }
+
+    @Override
+    public void deleteVertex(final String v) {
+        int id = getId(v);
+
+        if (id == -1) {
+            return;
+        }
+
+        while (mOut.count(id) > 0) {
+            removeEdge(id, mOut.count(id) - 1);
+        }
+
+        while (mIn.count(id) > 0) {
+            int k = mIn.count(id) - 1;
+
+            removeEdge(mIn.id(id, k), mIn.twin(id, k));
+        }
+
+        mOut.release(id);
+        mIn.release(id);
+        mNames[id] = null;
+        mIdsByName.remove(v);
+        mFree[mFreeCount] = id;
+        mFreeCount += 1;
+    }
+
+    @Override
+    public void deleteEdge(final Pair<String, String> e) {
+        int tail = getId(e.first);
+        int head = getId(e.second);
+
+        if (tail == -1 || head == -1) {
+            return;
+        }
+
+        int k = find(tail, head);
+
+        if (k != -1) {
+            removeEdge(tail, k);
+        }
+    }
+
+    /**
+     * Find an edge by scanning the shorter of the tail's outgoing and the
+     * head's incoming row.
+     * @param tail Tail id
+     * @param head Head id
+     * @return Index of the edge in the tail's outgoing row, or -1
+     */
+    private int find(final int tail, final int head) {
+        if (mOut.count(tail) <= mIn.count(head)) {
+            return mOut.find(tail, head);
+        }
+
+        int k = mIn.find(head, tail);
+
+        return k == -1 ? -1 : mIn.twin(head, k);
+    }
+
+    /**
+     * Remove an edge from both of its rows, fixing the twins of the entries
+     * moved into the holes.
+     * @param tail Tail id
+     * @param k Index of the edge in the tail's outgoing row
+     */
+    private void removeEdge(final int tail, final int k) {
+        int head = mOut.id(tail, k);
+        int j = mOut.twin(tail, k);
+
+        mOut.removeAt(tail, k);
+
+        if (k < mOut.count(tail)) {
+            mIn.setTwin(mOut.id(tail, k), mOut.twin(tail, k), k);
+        }
+
+        mIn.removeAt(head, j);
+
+        if (j < mIn.count(head)) {
+            mOut.setTwin(mIn.id(head, j), mIn.twin(head, j), j);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+
+/**
+ * IGraph that any number of threads can build and read at the same time
+ * without an outside lock.
+ *
+ * Vertices live in a ConcurrentHashMap, and every vertex keeps its outgoing
+ * edges in a small ConcurrentHashMap of its own, so threads adding edges from
+ * different vertices never contend. getVertices() and getOutgoingEdges()
+ * return weakly consistent copies: they contain everything that was
+ * finished before the call and may or may not contain what happens during
+ * it.
+ *
+ * Every vertex also remembers which vertices may have edges into it, so
+ * deleteVertex() can remove those edges without scanning the graph. To keep
+ * deleteVertex() correct while another thread adds an edge to the same
+ * vertex, a deleted vertex is flagged before its edges are removed, and
+ * addEdge() checks the flags after adding. Either the deleting thread sees
+ * the new edge, or the adding thread sees the flag and takes it back out.
+ * Until that has happened, getOutgoingEdges() may still list an edge into
+ * the vertex being deleted, like any other change that is still in flight.
+ *
+ * The edges are kept in maps rather than append-only lists so duplicate
+ * edges, deleteEdge() and deleteVertex() stay O(1) per edge.
+ */
+public final class ConcurrentGraph implements IGraph {
+    /** Concurrency level of the per-vertex maps, edges are rarely added from many threads to one vertex. */
+    private static final int VERTEX_CONCURRENCY = 1;
+
+    /** Initial capacity of the per-vertex maps. */
+    private static final int VERTEX_CAPACITY = 4;
+
+    /** Load factor of the per-vertex maps. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** Every vertex by name. */
+    private final ConcurrentHashMap<String, Vertex> mVertices;
+
+    /**
+     * A vertex and its edges. Edges point at Vertex objects rather than
+     * names, so an edge left behind by a deleted vertex can never be confused
+     * with an edge to a new vertex of the same name.
+     */
+    private static final class Vertex {
+        /** Outgoing edges by head. */
+        private final ConcurrentHashMap<Vertex, Pair<String, String>> mOutgoing;
+
+        /** Tails of the incoming edges, may also hold tails of deleted edges. */
+        private final Set<Vertex> mIncoming;
+
+        /** Set once the vertex is deleted. */
+        private volatile boolean mDeleted;
+
+        /**
+         * Create a vertex without edges.
+         */
+        Vertex() {
+            mOutgoing = new ConcurrentHashMap<Vertex, Pair<String, String>>(
+                    VERTEX_CAPACITY, LOAD_FACTOR, VERTEX_CONCURRENCY);
+            mIncoming = Collections.newSetFromMap(new ConcurrentHashMap<Vertex, Boolean>(
+                    VERTEX_CAPACITY, LOAD_FACTOR, VERTEX_CONCURRENCY));
+        }
+    }
+
+    /**
+     * Create an empty graph.
+     */
+    public ConcurrentGraph() {
+        mVertices = new ConcurrentHashMap<String, Vertex>();
+    }
+
+    @Override
+    public void addVertex(final String v) {
+        mVertices.putIfAbsent(v, new Vertex());
+    }
+
+    @Override
+    public void addEdge(final Pair<String, String> e) {
+        Vertex tail = mVertices.get(e.first);
+        Vertex head = mVertices.get(e.second);
+
+        if (tail == null || head == null) {
+            return;
+        }
+
+        if (tail.mOutgoing.putIfAbsent(head, e) != null) {
+            return;
+        }
+
+        head.mIncoming.add(tail);
+
+        if (tail.mDeleted || head.mDeleted) {
+            tail.mOutgoing.remove(head);
+            head.mIncoming.remove(tail);
+        }
+    }
+
+    @Override
+    public Collection<String> getVertices() {
+        return new ArrayList<String>(mVertices.keySet());
+    }
+
+    @Override
+    public Collection<Pair<String, String>> getOutgoingEdges(final String v) {
+        Vertex vertex = mVertices.get(v);
+
+        if (vertex == null) {
+            return null;
+        }
+
+        return new ArrayList<Pair<String, String>>(vertex.mOutgoing.values());
+    }
+
+    @Override
+    public void deleteVertex(final String v) {
+        Vertex vertex = mVertices.get(v);
+
+        if (vertex == null || !mVertices.remove(v, vertex)) {
+            return;
+        }
+
+        vertex.mDeleted = true;
+
+        for (Vertex tail : vertex.mIncoming) {
+            tail.mOutgoing.remove(vertex);
+        }
+
+        for (Vertex head : vertex.mOutgoing.keySet()) {
+            head.mIncoming.remove(vertex);
+        }
+    }
+
+    @Override
+    public void deleteEdge(final Pair<String, String> e) {
+        Vertex tail = mVertices.get(e.first);
+        Vertex head = mVertices.get(e.second);
+
+        if (tail == null || head == null) {
+            return;
+        }
+
+        tail.mOutgoing.remove(head);
+        head.mIncoming.remove(tail);
+    }
+}
@@ -0,0 +1,698 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Strongly connected components of a graph and its condensation, the DAG
+ * with one vertex per component.
+ *
+ * Large graphs are split with the forward-backward algorithm on a thread
+ * pool. A task first trims the vertices with no incoming or no outgoing edge
+ * inside its part, since each of those is a component on its own. It then
+ * picks a random pivot. The vertices both reachable from the pivot and
+ * reaching it form the pivot's component, and every other component lies
+ * entirely in the forward set, the backward set or the rest, so those three
+ * become new tasks. Each part has its own color, and a task only follows
+ * edges to vertices of its color, so tasks never share work. Parts smaller
+ * than SEQUENTIAL_SIZE, and whole graphs when there is only one thread, are
+ * finished with an iterative version of Tarjan's algorithm, so long paths
+ * don't overflow the stack.
+ *
+ * Components are numbered by their first vertex in the graph's vertex order,
+ * so the result doesn't depend on how the threads ran. The condensed graph is
+ * built through a GraphFactory, by default TestRunner.newGraph(), so it can
+ * be passed straight to topologicalSort and minScheduleLength.
+ */
+public final class Condensation {
+    /** Start of the name of every condensed graph vertex. */
+    private static final String PREFIX = "scc";
+
+    /** Parts with fewer vertices than this are finished with Tarjan's algorithm on one thread. */
+    static final int SEQUENTIAL_SIZE = 4096;
+
+    /** Color of a vertex whose component is known. */
+    private static final int DONE = -1;
+
+    /** Component of every vertex. */
+    private final Map<String, Integer> mComponent;
+
+    /** Vertices of every component. */
+    private final List<List<String>> mMembers;
+
+    /** The condensed graph. */
+    private final IGraph mGraph;
+
+    /**
+     * State shared by the tasks of one search. Every vertex belongs to one
+     * task at a time, and a task only writes the entries of its own
+     * vertices, so the arrays need no locking.
+     */
+    private static final class Search {
+        /** Successor ids of every vertex. */
+        private final int[][] mSuccessors;
+
+        /** Predecessor ids of every vertex. */
+        private final int[][] mPredecessors;
+
+        /** Part every vertex belongs to, DONE once its component is known. */
+        private final int[] mColor;
+
+        /** Component of every vertex, numbered in the order they were found. */
+        private final int[] mComponent;
+
+        /** Incoming edges from the same part, for trimming. */
+        private final int[] mInDegree;
+
+        /** Outgoing edges into the same part, for trimming. */
+        private final int[] mOutDegree;
+
+        /** Tarjan's visit order of every vertex, -1 if not visited. */
+        private final int[] mOrder;
+
+        /** Tarjan's low link of every vertex. */
+        private final int[] mLow;
+
+        /** Next successor Tarjan's search looks at for every vertex. */
+        private final int[] mNext;
+
+        /** True for the vertices on Tarjan's stack. */
+        private final boolean[] mOnStack;
+
+        /** Last color handed out. */
+        private final AtomicInteger mColors;
+
+        /** Number of components found. */
+        private final AtomicInteger mComponents;
+
+        /** Tasks submitted but not finished. */
+        private final AtomicInteger mPending;
+
+        /** Released when the last task finishes. */
+        private final CountDownLatch mDone;
+
+        /** First error thrown by a task. */
+        private final AtomicReference<Throwable> mError;
+
+        /** Pool running the tasks, null when searching on one thread. */
+        private ExecutorService mExecutor;
+
+        /**
+         * @param successors Successor ids of every vertex
+         */
+        Search(final int[][] successors) {
+            int n = successors.length;
+            int[] degree = new int[n];
+
+            mSuccessors = successors;
+            mPredecessors = new int[n][];
+            mColor = new int[n];
+            mComponent = new int[n];
+            mInDegree = new int[n];
+            mOutDegree = new int[n];
+            mOrder = new int[n];
+            mLow = new int[n];
+            mNext = new int[n];
+            mOnStack = new boolean[n];
+            mColors = new AtomicInteger();
+            mComponents = new AtomicInteger();
+            mPending = new AtomicInteger();
+            mDone = new CountDownLatch(1);
+            mError = new AtomicReference<Throwable>();
+
+            for (int[] targets : successors) {
+                for (int u : targets) {
+                    degree[u] += 1;
+                }
+            }
+
+            for (int v = 0; v < n; v += 1) {
+                mPredecessors[v] = new int[degree[v]];
+                degree[v] = 0;
+            }
+
+            for (int v = 0; v < n; v += 1) {
+                for (int u : successors[v]) {
+                    mPredecessors[u][degree[u]] = v;
+                    degree[u] += 1;
+                }
+            }
+        }
+
+        /**
+         * Find every component.
+         * @param threads Number of threads to use
+         * @return Component of every vertex, numbered by first vertex id
+         */
+        int[] run(final int threads) {
+            int n = mColor.length;
+            int[] all = new int[n];
+
+            for (int v = 0; v < n; v += 1) {
+                all[v] = v;
+            }
+
+            if (threads == 1 || n < SEQUENTIAL_SIZE) {
+                tarjan(all, 0);
+                return relabel();
+            }
+
+            mExecutor = Executors.newFixedThreadPool(threads);
+
+            try {
+                submit(all, 0);
+                mDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while finding components", e);
+            } finally {
+                mExecutor.shutdownNow();
+            }
+
+            if (mError.get() != null) {
+                throw new IllegalStateException("Finding components failed", mError.get());
+            }
+
+            return relabel();
+        }
+
+        /**
+         * Split a part on the pool.
+         * @param members Vertices of the part
+         * @param color Color of the part
+         */
+        private void submit(final int[] members, final int color) {
+            mPending.incrementAndGet();
+            mExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        split(members, color);
+                    } catch (Throwable e) {
+                        mError.compareAndSet(null, e);
+                    } finally {
+                        if (mPending.decrementAndGet() == 0) {
+                            mDone.countDown();
+                        }
+                    }
+                }
+            });
+        }
+
+        /**
+         * One forward-backward step: trim, take the pivot's component and
+         * submit the parts left over.
+         *
+         * @param members Vertices of the part
+         * @param color Color of the part
+         */
+        private void split(final int[] members, final int color) {
+            int[] rest = members.length < SEQUENTIAL_SIZE ? members : trim(members, color);
+
+            if (rest.length < SEQUENTIAL_SIZE) {
+                tarjan(rest, color);
+                return;
+            }
+
+            int pivot = rest[new Random(color).nextInt(rest.length)];
+            int forward = mColors.incrementAndGet();
+            int backward = mColors.incrementAndGet();
+
+            forward(pivot, color, forward);
+            backward(pivot, color, forward, backward, mComponents.getAndIncrement());
+
+            submitColor(rest, forward);
+            submitColor(rest, backward);
+            submitColor(rest, color);
+        }
+
+        /**
+         * Recolor every vertex of the part the pivot reaches.
+         * @param pivot Vertex to start from
+         * @param color Color of the part
+         * @param forward Color of the vertices reached
+         */
+        private void forward(final int pivot, final int color, final int forward) {
+            int[] stack = new int[16];
+            int top = 0;
+
+            mColor[pivot] = forward;
+            stack[top] = pivot;
+            top += 1;
+
+            while (top > 0) {
+                top -= 1;
+                int v = stack[top];
+
+                for (int u : mSuccessors[v]) {
+                    if (mColor[u] == color) {
+                        mColor[u] = forward;
+                        stack = append(stack, top, u);
+                        top += 1;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Search backward from the pivot over the part and the vertices the
+         * forward search reached. Vertices found by both searches are the
+         * pivot's component, the others reached here get the backward color.
+         *
+         * @param pivot Vertex to start from
+         * @param color Color of the part
+         * @param forward Color of the vertices the forward search reached
+         * @param backward Color of the vertices only this search reaches
+         * @param component Component of the pivot
+         */
+        private void backward(final int pivot, final int color, final int forward, final int backward,
+                final int component) {
+            int[] stack = new int[16];
+            int top = 0;
+
+            mColor[pivot] = DONE;
+            mComponent[pivot] = component;
+            stack[top] = pivot;
+            top += 1;
+
+            while (top > 0) {
+                top -= 1;
+                int v = stack[top];
+
+                for (int u : mPredecessors[v]) {
+                    if (mColor[u] == forward) {
+                        mColor[u] = DONE;
+                        mComponent[u] = component;
+                    } else if (mColor[u] == color) {
+                        mColor[u] = backward;
+                    } else {
+                        continue;
+                    }
+
+                    stack = append(stack, top, u);
+                    top += 1;
+                }
+            }
+        }
+
+        /**
+         * Submit the vertices of one color as a new part, if there are any.
+         * @param members Vertices to pick from
+         * @param color Color of the new part
+         */
+        private void submitColor(final int[] members, final int color) {
+            int count = 0;
+
+            for (int v : members) {
+                if (mColor[v] == color) {
+                    count += 1;
+                }
+            }
+
+            if (count == 0) {
+                return;
+            }
+
+            int[] part = new int[count];
+
+            count = 0;
+
+            for (int v : members) {
+                if (mColor[v] == color) {
+                    part[count] = v;
+                    count += 1;
+                }
+            }
+
+            submit(part, color);
+        }
+
+        /**
+         * Take out the vertices without an incoming or an outgoing edge
+         * inside the part, each of them a component of its own, until every
+         * vertex left has both.
+         *
+         * @param members Vertices of the part
+         * @param color Color of the part
+         * @return The vertices left
+         */
+        private int[] trim(final int[] members, final int color) {
+            int[] queue = new int[16];
+            int tail = 0;
+            int left = members.length;
+
+            for (int v : members) {
+                mInDegree[v] = 0;
+                mOutDegree[v] = 0;
+
+                for (int u : mPredecessors[v]) {
+                    if (mColor[u] == color) {
+                        mInDegree[v] += 1;
+                    }
+                }
+
+                for (int u : mSuccessors[v]) {
+                    if (mColor[u] == color) {
+                        mOutDegree[v] += 1;
+                    }
+                }
+
+                if (mInDegree[v] == 0 || mOutDegree[v] == 0) {
+                    queue = append(queue, tail, v);
+                    tail += 1;
+                }
+            }
+
+            for (int head = 0; head < tail; head += 1) {
+                int v = queue[head];
+
+                if (mColor[v] != color) {
+                    continue;
+                }
+
+                mColor[v] = DONE;
+                mComponent[v] = mComponents.getAndIncrement();
+                left -= 1;
+
+                for (int u : mSuccessors[v]) {
+                    if (mColor[u] == color) {
+                        mInDegree[u] -= 1;
+
+                        if (mInDegree[u] == 0) {
+                            queue = append(queue, tail, u);
+                            tail += 1;
+                        }
+                    }
+                }
+
+                for (int u : mPredecessors[v]) {
+                    if (mColor[u] == color) {
+                        mOutDegree[u] -= 1;
+
+                        if (mOutDegree[u] == 0) {
+                            queue = append(queue, tail, u);
+                            tail += 1;
+                        }
+                    }
+                }
+            }
+
+            int[] rest = new int[left];
+
+            left = 0;
+
+            for (int v : members) {
+                if (mColor[v] == color) {
+                    rest[left] = v;
+                    left += 1;
+                }
+            }
+
+            return rest;
+        }
+
+        /**
+         * Iterative Tarjan over the vertices of one part, following only edges
+         * that stay inside it.
+         *
+         * @param members Vertices of the part
+         * @param color Color of the part
+         */
+        private void tarjan(final int[] members, final int color) {
+            int[] call = new int[members.length];
+            int[] stack = new int[members.length];
+            int counter = 0;
+            int calls = 0;
+            int stacked = 0;
+
+            for (int v : members) {
+                mOrder[v] = -1;
+                mNext[v] = 0;
+            }
+
+            for (int root : members) {
+                if (mOrder[root] != -1) {
+                    continue;
+                }
+
+                call[calls] = root;
+                calls += 1;
+
+                while (calls > 0) {
+                    int v = call[calls - 1];
+
+                    if (mOrder[v] == -1) {
+                        mOrder[v] = counter;
+                        mLow[v] = counter;
+                        counter += 1;
+                        stack[stacked] = v;
+                        stacked += 1;
+                        mOnStack[v] = true;
+                    }
+
+                    if (mNext[v] < mSuccessors[v].length) {
+                        int u = mSuccessors[v][mNext[v]];
+                        mNext[v] += 1;
+
+                        if (mColor[u] != color) {
+                            continue;
+                        }
+
+                        if (mOrder[u] == -1) {
+                            call[calls] = u;
+                            calls += 1;
+                        } else if (mOnStack[u]) {
+                            mLow[v] = Math.min(mLow[v], mOrder[u]);
+                        }
+
+                        continue;
+                    }
+
+                    calls -= 1;
+
+                    if (calls > 0) {
+                        int parent = call[calls - 1];
+                        mLow[parent] = Math.min(mLow[parent], mLow[v]);
+                    }
+
+                    if (mLow[v] == mOrder[v]) {
+                        int component = mComponents.getAndIncrement();
+                        int u;
+
+                        do {
+                            stacked -= 1;
+                            u = stack[stacked];
+                            mOnStack[u] = false;
+                            mComponent[u] = component;
+                        } while (u != v);
+                    }
+                }
+            }
+
+            for (int v : members) {
+                mColor[v] = DONE;
+            }
+        }
+
+        /**
+         * Number the components by their first vertex.
+         * @return Component of every vertex
+         */
+        private int[] relabel() {
+            int[] label = new int[mComponents.get()];
+            int[] component = new int[mComponent.length];
+            int next = 0;
+
+            Arrays.fill(label, -1);
+
+            for (int v = 0; v < component.length; v += 1) {
+                if (label[mComponent[v]] == -1) {
+                    label[mComponent[v]] = next;
+                    next += 1;
+                }
+
+                component[v] = label[mComponent[v]];
+            }
+
+            return component;
+        }
+
+        /**
+         * Store a value after the first size entries of an array, growing it
+         * if it is full.
+         * @param a Array
+         * @param size Entries in use
+         * @param x Value to store
+         * @return The array, or a larger copy of it
+         */
+        private static int[] append(final int[] a, final int size, final int x) {
+            int[] b = a;
+
+            if (size == b.length) {
+                b = Arrays.copyOf(a, Math.max(1, 2 * size));
+            }
+
+            b[size] = x;
+            return b;
+        }
+    }
+
+    /**
+     * Find the components on one thread per processor and build the
+     * condensed graph.
+     * @param g Graph to condense
+     */
+    public Condensation(final IGraph g) {
+        this(g, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Find the components and build the condensed graph.
+     * @param g Graph to condense
+     * @param threads Number of threads to use, 1 runs Tarjan's algorithm on
+     *        the calling thread
+     * @throws IllegalArgumentException If threads is less than 1
+     */
+    public Condensation(final IGraph g, final int threads) {
+        this(g, threads, GraphFactory.TEST_RUNNER);
+    }
+
+    /**
+     * Find the components and build the condensed graph with a given
+     * implementation.
+     * @param g Graph to condense
+     * @param threads Number of threads to use, 1 runs Tarjan's algorithm on
+     *        the calling thread
+     * @param factory Source of the condensed graph
+     * @throws IllegalArgumentException If threads is less than 1
+     */
+    public Condensation(final IGraph g, final int threads, final GraphFactory factory) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread, got " + threads);
+        }
+
+        IndexedGraph indexed = IndexedGraph.of(g);
+        int n = indexed.size();
+        int[][] successors = new int[n][];
+
+        for (int v = 0; v < n; v += 1) {
+            successors[v] = indexed.getSuccessors(v);
+        }
+
+        int[] component = new Search(successors).run(threads);
+        int components = 0;
+
+        for (int c : component) {
+            components = Math.max(components, c + 1);
+        }
+
+        mComponent = new HashMap<String, Integer>();
+        List<List<String>> members = new ArrayList<List<String>>(components);
+
+        for (int c = 0; c < components; c += 1) {
+            members.add(new ArrayList<String>());
+        }
+
+        for (int v = 0; v < n; v += 1) {
+            mComponent.put(indexed.getVertex(v), component[v]);
+            members.get(component[v]).add(indexed.getVertex(v));
+        }
+
+        mMembers = members;
+        mGraph = factory.newGraph();
+
+        for (int c = 0; c < components; c += 1) {
+            mGraph.addVertex(name(c));
+        }
+
+        HashSet<Pair<String, String>> added = new HashSet<Pair<String, String>>();
+
+        for (int v = 0; v < n; v += 1) {
+            for (int u : successors[v]) {
+                if (component[v] != component[u]) {
+                    Pair<String, String> e = new Pair<String, String>(name(component[v]), name(component[u]));
+
+                    if (added.add(e)) {
+                        mGraph.addEdge(e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Name of a component's vertex in the condensed graph.
+     * @param c Component number
+     * @return Vertex name
+     */
+    private static String name(final int c) {
+        return PREFIX + c;
+    }
+
+    /**
+     * @return The condensed graph, one vertex per component
+     */
+    public IGraph getGraph() {
+        return mGraph;
+    }
+
+    /**
+     * @return Number of components
+     */
+    public int size() {
+        return mMembers.size();
+    }
+
+    /**
+     * Condensed graph vertex holding a vertex of the original graph.
+     * @param v Vertex of the original graph
+     * @return Vertex of the condensed graph
+     */
+    public String getComponent(final String v) {
+        return name(mComponent.get(v));
+    }
+
+    /**
+     * Vertices of the original graph in a component.
+     * @param c Vertex of the condensed graph
+     * @return Its members
+     */
+    public List<String> getMembers(final String c) {
+        return Collections.unmodifiableList(mMembers.get(Integer.parseInt(c.substring(PREFIX.length()))));
+    }
+
+    /**
+     * Task times for the condensed graph. The tasks of a component depend on
+     * each other in a cycle, so they run one after another and the component
+     * takes the sum of their times.
+     *
+     * @param times Time of every vertex of the original graph
+     * @return Time of every vertex of the condensed graph
+     */
+    public Map<String, Integer> getTimes(final Map<String, Integer> times) {
+        HashMap<String, Integer> result = new HashMap<String, Integer>();
+
+        for (int c = 0; c < mMembers.size(); c += 1) {
+            int total = 0;
+
+            for (String v : mMembers.get(c)) {
+                total += times.get(v);
+            }
+
+            result.put(name(c), total);
+        }
+
+        return result;
+    }
+}
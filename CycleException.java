@@ -0,0 +1,46 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a graph that has to be a DAG has a cycle, carrying one of its
+ * cycles so the caller can report or break it.
+ *
+ * IndexedGraph.topologicalOrder throws it, and with it ListScheduler,
+ * ScheduleReport and IncrementalSchedule. DynamicTopologicalOrder.addEdge
+ * throws it for an edge that would close a cycle. A graph that should be
+ * scheduled in spite of its cycles can go through Condensation first.
+ */
+public class CycleException extends IllegalArgumentException {
+    /** Serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /** Vertices of the cycle in edge order. */
+    private final List<String> mCycle;
+
+    /**
+     * @param cycle Vertices of the cycle in edge order, the last one having
+     *        an edge back to the first
+     */
+    public CycleException(final List<String> cycle) {
+        this("Graph has a cycle", cycle);
+    }
+
+    /**
+     * @param message What had the cycle, the cycle is added to it
+     * @param cycle Vertices of the cycle in edge order, the last one having
+     *        an edge back to the first
+     */
+    public CycleException(final String message, final List<String> cycle) {
+        super(message + " " + cycle);
+        mCycle = Collections.unmodifiableList(new ArrayList<String>(cycle));
+    }
+
+    /**
+     * @return Vertices of the cycle in edge order, the last one having an
+     *         edge back to the first
+     */
+    public List<String> getCycle() {
+        return mCycle;
+    }
+}
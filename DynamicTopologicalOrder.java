@@ -0,0 +1,421 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+
+/**
+ * Topological order of a DAG that is kept up to date while edges are added
+ * and removed, instead of sorting again after every change.
+ *
+ * The order starts from IndexedGraph.topologicalOrder() and every vertex
+ * holds a distinct rank in it. Edges are added with the Pearce-Kelly
+ * algorithm: an edge that already goes forward changes nothing, and an edge
+ * tail -> head that goes backward only reorders the vertices reachable from
+ * head with rank up to tail's and the vertices reaching tail with rank from
+ * head's, among the ranks they already hold. If the forward search reaches
+ * tail the edge would close a cycle, so it is rejected with a CycleException
+ * naming that cycle and nothing changes. Removing an edge never breaks the
+ * order. getOrder() reads the ranks back in O(V).
+ *
+ * Vertices are fixed when the order is built; only edges between them
+ * change. The snapshot given to the constructor isn't changed.
+ */
+public final class DynamicTopologicalOrder {
+    /** The vertices with dense ids, as they were when the order was built. */
+    private final IndexedGraph mGraph;
+
+    /** Position of every vertex in the order, all distinct. */
+    private final int[] mRank;
+
+    /** Successors of every vertex, the first mSuccessorCount[v] are used. */
+    private final int[][] mSuccessors;
+
+    /** Number of successors of every vertex. */
+    private final int[] mSuccessorCount;
+
+    /** Predecessors of every vertex, the first mPredecessorCount[v] are used. */
+    private final int[][] mPredecessors;
+
+    /** Number of predecessors of every vertex. */
+    private final int[] mPredecessorCount;
+
+    /** Search marks, a vertex is marked if equal to mStamp. */
+    private final int[] mMark;
+
+    /** Vertex each forward search reached a vertex from. */
+    private final int[] mParent;
+
+    /** Current search mark. */
+    private int mStamp;
+
+    /**
+     * Order the vertices of a graph.
+     * @param g DAG to order
+     * @throws CycleException If the graph has a cycle
+     */
+    public DynamicTopologicalOrder(final IGraph g) {
+        this(IndexedGraph.of(g));
+    }
+
+    /**
+     * Order the vertices of a snapshot.
+     * @param g DAG to order
+     * @throws CycleException If the graph has a cycle
+     */
+    public DynamicTopologicalOrder(final IndexedGraph g) {
+        mGraph = g;
+
+        int n = mGraph.size();
+        int[] order = mGraph.topologicalOrder();
+        int[] degree = mGraph.inDegrees();
+
+        mRank = new int[n];
+        mSuccessors = new int[n][];
+        mSuccessorCount = new int[n];
+        mPredecessors = new int[n][];
+        mPredecessorCount = new int[n];
+        mMark = new int[n];
+        mParent = new int[n];
+
+        for (int v = 0; v < n; v += 1) {
+            mSuccessors[v] = mGraph.getSuccessors(v).clone();
+            mSuccessorCount[v] = mSuccessors[v].length;
+            mPredecessors[v] = new int[Math.max(1, degree[v])];
+        }
+
+        for (int v = 0; v < n; v += 1) {
+            for (int u : mSuccessors[v]) {
+                mPredecessors[u][mPredecessorCount[u]] = v;
+                mPredecessorCount[u] += 1;
+            }
+        }
+
+        for (int k = 0; k < n; k += 1) {
+            mRank[order[k]] = k;
+        }
+    }
+
+    /**
+     * @return The snapshot giving the vertex ids
+     */
+    public IndexedGraph getGraph() {
+        return mGraph;
+    }
+
+    /**
+     * The current order, in O(V).
+     * @return Every vertex, each before the vertices its edges lead to
+     */
+    public List<String> getOrder() {
+        int[] byRank = new int[mRank.length];
+        List<String> order = new ArrayList<String>(mRank.length);
+
+        for (int v = 0; v < mRank.length; v += 1) {
+            byRank[mRank[v]] = v;
+        }
+
+        for (int v : byRank) {
+            order.add(mGraph.getVertex(v));
+        }
+
+        return order;
+    }
+
+    /**
+     * @param v Vertex id
+     * @return Its position in the current order
+     */
+    public int getRank(final int v) {
+        return mRank[v];
+    }
+
+    /**
+     * @param v Vertex id
+     * @return Number of edges out of it
+     */
+    public int getSuccessorCount(final int v) {
+        return mSuccessorCount[v];
+    }
+
+    /**
+     * @param v Vertex id
+     * @param k Index from 0 to getSuccessorCount(v) - 1
+     * @return Head of one of its edges
+     */
+    public int getSuccessor(final int v, final int k) {
+        return mSuccessors[v][k];
+    }
+
+    /**
+     * @param v Vertex id
+     * @return Number of edges into it
+     */
+    public int getPredecessorCount(final int v) {
+        return mPredecessorCount[v];
+    }
+
+    /**
+     * @param v Vertex id
+     * @param k Index from 0 to getPredecessorCount(v) - 1
+     * @return Tail of one of its edges
+     */
+    public int getPredecessor(final int v, final int k) {
+        return mPredecessors[v][k];
+    }
+
+    /**
+     * Add the edge v -> u.
+     * @param v Tail vertex
+     * @param u Head vertex
+     * @return False if the edge was already there
+     * @throws CycleException If the edge would close a cycle, the order is
+     *         left unchanged
+     */
+    public boolean addEdge(final String v, final String u) {
+        return addEdge(mGraph.getIndex(v), mGraph.getIndex(u));
+    }
+
+    /**
+     * Add the edge tail -> head by id.
+     * @param tail Tail vertex id
+     * @param head Head vertex id
+     * @return False if the edge was already there
+     * @throws CycleException If the edge would close a cycle, the order is
+     *         left unchanged
+     */
+    public boolean addEdge(final int tail, final int head) {
+        if (find(mSuccessors[tail], mSuccessorCount[tail], head) != -1) {
+            return false;
+        }
+
+        if (mRank[head] <= mRank[tail]) {
+            reorder(tail, head);
+        }
+
+        mSuccessors[tail] = append(mSuccessors[tail], mSuccessorCount[tail], head);
+        mSuccessorCount[tail] += 1;
+        mPredecessors[head] = append(mPredecessors[head], mPredecessorCount[head], tail);
+        mPredecessorCount[head] += 1;
+
+        return true;
+    }
+
+    /**
+     * Remove the edge v -> u.
+     * @param v Tail vertex
+     * @param u Head vertex
+     * @return False if the edge wasn't there
+     */
+    public boolean deleteEdge(final String v, final String u) {
+        return deleteEdge(mGraph.getIndex(v), mGraph.getIndex(u));
+    }
+
+    /**
+     * Remove the edge tail -> head by id.
+     * @param tail Tail vertex id
+     * @param head Head vertex id
+     * @return False if the edge wasn't there
+     */
+    public boolean deleteEdge(final int tail, final int head) {
+        if (!remove(mSuccessors[tail], mSuccessorCount[tail], head)) {
+            return false;
+        }
+
+        mSuccessorCount[tail] -= 1;
+        remove(mPredecessors[head], mPredecessorCount[head], tail);
+        mPredecessorCount[head] -= 1;
+
+        return true;
+    }
+
+    /**
+     * Pearce-Kelly: fix the ranks before adding the edge tail -> head where
+     * head doesn't come after tail. The vertices reachable from head with
+     * rank up to tail's, and the vertices reaching tail with rank from
+     * head's, swap places among the ranks they already hold.
+     *
+     * @param tail Tail of the new edge
+     * @param head Head of the new edge
+     * @throws CycleException If head reaches tail
+     */
+    private void reorder(final int tail, final int head) {
+        int lower = mRank[head];
+        int upper = mRank[tail];
+
+        mStamp += 1;
+
+        int[] forward = tail == head ? null : search(head, upper, true, tail);
+
+        if (forward == null) {
+            throw new CycleException("Edge " + mGraph.getVertex(tail) + " -> " + mGraph.getVertex(head)
+                    + " would close a cycle", cycle(tail, head));
+        }
+
+        mStamp += 1;
+
+        int[] backward = search(tail, lower, false, -1);
+        int[] ranks = new int[forward.length + backward.length];
+        long[] sorted = new long[ranks.length];
+
+        sortByRank(backward, sorted, 0);
+        sortByRank(forward, sorted, backward.length);
+
+        for (int k = 0; k < sorted.length; k += 1) {
+            ranks[k] = (int) (sorted[k] >>> 32);
+        }
+
+        Arrays.sort(ranks);
+
+        for (int k = 0; k < sorted.length; k += 1) {
+            mRank[(int) sorted[k]] = ranks[k];
+        }
+    }
+
+    /**
+     * The cycle the edge tail -> head would close, read off the parents the
+     * forward search from head left on its way to tail.
+     * @param tail Tail of the rejected edge
+     * @param head Head of the rejected edge
+     * @return Vertex names from head to tail in edge order
+     */
+    private List<String> cycle(final int tail, final int head) {
+        List<String> cycle = new ArrayList<String>();
+
+        for (int v = tail; v != head; v = mParent[v]) {
+            cycle.add(mGraph.getVertex(v));
+        }
+
+        cycle.add(mGraph.getVertex(head));
+        Collections.reverse(cycle);
+
+        return cycle;
+    }
+
+    /**
+     * Depth first search from a vertex over the vertices between it and a
+     * rank bound, marking what it visits with mStamp. Going forward it
+     * records in mParent where each vertex was reached from.
+     *
+     * @param from Vertex to start from
+     * @param bound Largest rank going forward, smallest rank going backward
+     * @param forward True to follow successors, false to follow predecessors
+     * @param target Vertex that must not be reached, or -1
+     * @return The vertices visited, or null if target was reached
+     */
+    private int[] search(final int from, final int bound, final boolean forward, final int target) {
+        int[] stack = new int[16];
+        int[] visited = new int[16];
+        int top = 0;
+        int count = 0;
+
+        mMark[from] = mStamp;
+        stack[top] = from;
+        top += 1;
+
+        while (top > 0) {
+            top -= 1;
+            int v = stack[top];
+
+            visited = append(visited, count, v);
+            count += 1;
+
+            int[] next = forward ? mSuccessors[v] : mPredecessors[v];
+            int size = forward ? mSuccessorCount[v] : mPredecessorCount[v];
+
+            for (int k = 0; k < size; k += 1) {
+                int u = next[k];
+
+                if (u == target) {
+                    mParent[u] = v;
+                    return null;
+                }
+
+                boolean inside = forward ? mRank[u] <= bound : mRank[u] >= bound;
+
+                if (inside && mMark[u] != mStamp) {
+                    mMark[u] = mStamp;
+
+                    if (forward) {
+                        mParent[u] = v;
+                    }
+
+                    stack = append(stack, top, u);
+                    top += 1;
+                }
+            }
+        }
+
+        return Arrays.copyOf(visited, count);
+    }
+
+    /**
+     * Pack vertices with their ranks and sort them by rank.
+     * @param vertices Vertex ids
+     * @param out Array to write rank &lt;&lt; 32 | vertex into
+     * @param offset Where to start writing
+     */
+    private void sortByRank(final int[] vertices, final long[] out, final int offset) {
+        for (int k = 0; k < vertices.length; k += 1) {
+            out[offset + k] = ((long) mRank[vertices[k]] << 32) | vertices[k];
+        }
+
+        Arrays.sort(out, offset, offset + vertices.length);
+    }
+
+    /**
+     * Position of a value among the first size entries of an array.
+     * @param a Array
+     * @param size Entries in use
+     * @param x Value to find
+     * @return Its position, or -1
+     */
+    private static int find(final int[] a, final int size, final int x) {
+        for (int k = 0; k < size; k += 1) {
+            if (a[k] == x) {
+                return k;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Remove a value from the first size entries of an array by moving the
+     * last entry into its place.
+     * @param a Array
+     * @param size Entries in use
+     * @param x Value to remove
+     * @return True if it was there
+     */
+    private static boolean remove(final int[] a, final int size, final int x) {
+        int k = find(a, size, x);
+
+        if (k == -1) {
+            return false;
+        }
+
+        a[k] = a[size - 1];
+        return true;
+    }
+
+    /**
+     * Store a value after the first size entries of an array, growing it if
+     * it is full.
+     * @param a Array
+     * @param size Entries in use
+     * @param x Value to store
+     * @return The array, or a larger copy of it
+     */
+    private static int[] append(final int[] a, final int size, final int x) {
+        int[] b = a;
+
+        if (size == b.length) {
+            b = Arrays.copyOf(a, Math.max(1, 2 * size));
+        }
+
+        b[size] = x;
+        return b;
+    }
+}
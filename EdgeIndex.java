@@ -0,0 +1,193 @@
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Dense int ids for the edges of a graph, so capacities and flows can be
+ * kept in int arrays indexed by edge instead of maps keyed by Pairs.
+ *
+ * Vertex ids are those of an IndexedGraph, and the edges of vertex v come
+ * in the order of getSuccessors(v), one after another, so the edges out of
+ * a vertex have consecutive ids. toArray() and toMap() convert between the
+ * Map signatures of IMaxFlowAlgorithms and the arrays; only they box values
+ * or build Pairs. Like the IndexedGraph it wraps, an index never changes
+ * and can be shared between threads.
+ */
+public final class EdgeIndex {
+    /** The vertices with dense ids. */
+    private final IndexedGraph mGraph;
+
+    /** Edges of vertex v are mFirst[v] to mFirst[v + 1] - 1. */
+    private final int[] mFirst;
+
+    /** Tail of every edge. */
+    private final int[] mTails;
+
+    /** Head of every edge. */
+    private final int[] mHeads;
+
+    /**
+     * Number the edges of a graph.
+     * @param g Graph to read
+     */
+    public EdgeIndex(final IGraph g) {
+        this(IndexedGraph.of(g));
+    }
+
+    /**
+     * Number the edges of a snapshot.
+     * @param g Snapshot to read
+     */
+    public EdgeIndex(final IndexedGraph g) {
+        mGraph = g;
+        mFirst = new int[g.size() + 1];
+
+        for (int v = 0; v < g.size(); v += 1) {
+            mFirst[v + 1] = mFirst[v] + g.getSuccessors(v).length;
+        }
+
+        mTails = new int[mFirst[g.size()]];
+        mHeads = new int[mTails.length];
+
+        for (int v = 0; v < g.size(); v += 1) {
+            int[] successors = g.getSuccessors(v);
+
+            for (int k = 0; k < successors.length; k += 1) {
+                mTails[mFirst[v] + k] = v;
+                mHeads[mFirst[v] + k] = successors[k];
+            }
+        }
+    }
+
+    /**
+     * @return The snapshot giving the vertex ids
+     */
+    public IndexedGraph getGraph() {
+        return mGraph;
+    }
+
+    /**
+     * @return Number of edges
+     */
+    public int size() {
+        return mTails.length;
+    }
+
+    /**
+     * @param e Edge id
+     * @return Id of its tail
+     */
+    public int getTail(final int e) {
+        return mTails[e];
+    }
+
+    /**
+     * @param e Edge id
+     * @return Id of its head
+     */
+    public int getHead(final int e) {
+        return mHeads[e];
+    }
+
+    /**
+     * @return Tail of every edge, shared, not to be written to
+     */
+    int[] getTails() {
+        return mTails;
+    }
+
+    /**
+     * @return Head of every edge, shared, not to be written to
+     */
+    int[] getHeads() {
+        return mHeads;
+    }
+
+    /**
+     * Id of an edge, found by scanning its tail's edges.
+     * @param v Tail id
+     * @param u Head id
+     * @return The edge id, or -1 if there is no such edge
+     */
+    public int getEdge(final int v, final int u) {
+        for (int e = mFirst[v]; e < mFirst[v + 1]; e += 1) {
+            if (mHeads[e] == u) {
+                return e;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Id of an edge by vertex names.
+     * @param v Tail
+     * @param u Head
+     * @return The edge id, or -1 if the graph doesn't have the edge
+     */
+    public int getEdge(final String v, final String u) {
+        if (!mGraph.contains(v) || !mGraph.contains(u)) {
+            return -1;
+        }
+
+        return getEdge(mGraph.getIndex(v), mGraph.getIndex(u));
+    }
+
+    /**
+     * Read per-edge values out of a map. Entries for edges the graph doesn't
+     * have are ignored.
+     * @param values Value of every edge, missing edges are 0
+     * @return Array indexed by edge id
+     */
+    public int[] toArray(final Map<Pair<String, String>, Integer> values) {
+        int[] array = new int[size()];
+
+        for (int e = 0; e < array.length; e += 1) {
+            Integer x = values.get(new Pair<String, String>(
+                    mGraph.getVertex(mTails[e]), mGraph.getVertex(mHeads[e])));
+
+            array[e] = x == null ? 0 : x;
+        }
+
+        return array;
+    }
+
+    /**
+     * Put per-edge values into a map, leaving out the zeros, which is the
+     * form the max flow methods return flows in.
+     * @param values Array indexed by edge id
+     * @return Value of every edge where it isn't 0
+     */
+    public Map<Pair<String, String>, Integer> toMap(final int[] values) {
+        Map<Pair<String, String>, Integer> map = new HashMap<Pair<String, String>, Integer>();
+
+        for (int e = 0; e < values.length; e += 1) {
+            if (values[e] != 0) {
+                map.put(new Pair<String, String>(mGraph.getVertex(mTails[e]), mGraph.getVertex(mHeads[e])),
+                        values[e]);
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * Read per-vertex values out of a map, such as vertex capacities.
+     * @param values Value of every vertex
+     * @param missing Value of vertices the map doesn't have
+     * @return Array indexed by vertex id
+     */
+    public int[] toVertexArray(final Map<String, Integer> values, final int missing) {
+        int[] array = new int[mGraph.size()];
+
+        for (int v = 0; v < array.length; v += 1) {
+            Integer x = values.get(mGraph.getVertex(v));
+
+            array[v] = x == null ? missing : x;
+        }
+
+        return array;
+    }
+}
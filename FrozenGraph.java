@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+
+/**
+ * Immutable snapshot of an IGraph, for graphs that are built once and then
+ * read many times, possibly from many threads.
+ *
+ * The vertices and edges are packed into an IndexedGraph when the graph is
+ * frozen, and every vertex gets its outgoing edges as an unmodifiable list
+ * up front. getVertices() and getOutgoingEdges() return those cached lists,
+ * so reads allocate nothing and need no locking. The methods that change the
+ * graph throw UnsupportedOperationException.
+ *
+ * ListScheduler, ScheduleReport and IncrementalSchedule get their ids through
+ * IndexedGraph.of(), which reuses the packed graph of a FrozenGraph instead
+ * of building a new one.
+ */
+public final class FrozenGraph implements IGraph {
+    /** The graph with dense ids. */
+    private final IndexedGraph mGraph;
+
+    /** Every vertex, unmodifiable. */
+    private final List<String> mVertices;
+
+    /** Outgoing edges of every vertex by id, unmodifiable. */
+    private final List<List<Pair<String, String>>> mEdges;
+
+    /**
+     * Take the snapshot.
+     * @param g Graph to copy
+     */
+    private FrozenGraph(final IGraph g) {
+        mGraph = new IndexedGraph(g);
+
+        int n = mGraph.size();
+        List<String> vertices = new ArrayList<String>(n);
+        List<List<Pair<String, String>>> edges = new ArrayList<List<Pair<String, String>>>(n);
+
+        for (int v = 0; v < n; v += 1) {
+            int[] successors = mGraph.getSuccessors(v);
+            List<Pair<String, String>> out = new ArrayList<Pair<String, String>>(successors.length);
+
+            for (int u : successors) {
+                out.add(new Pair<String, String>(mGraph.getVertex(v), mGraph.getVertex(u)));
+            }
+
+            vertices.add(mGraph.getVertex(v));
+            edges.add(Collections.unmodifiableList(out));
+        }
+
+        mVertices = Collections.unmodifiableList(vertices);
+        mEdges = Collections.unmodifiableList(edges);
+    }
+
+    /**
+     * Freeze a graph. Later changes to the graph don't show up in the
+     * snapshot.
+     *
+     * @param g Graph to freeze
+     * @return An immutable copy, or g itself if it is already frozen
+     */
+    public static FrozenGraph freeze(final IGraph g) {
+        if (g instanceof FrozenGraph) {
+            return (FrozenGraph) g;
+        }
+
+        return new FrozenGraph(g);
+    }
+
+    /**
+     * @return The packed graph, shared rather than copied
+     */
+    public IndexedGraph getIndexedGraph() {
+        return mGraph;
+    }
+
+    @Override
+    public void addVertex(final String v) {
+        throw new UnsupportedOperationException("Graph is frozen");
+    }
+
+    @Override
+    public void addEdge(final Pair<String, String> e) {
+        throw new UnsupportedOperationException("Graph is frozen");
+    }
+
+    @Override
+    public Collection<String> getVertices() {
+        return mVertices;
+    }
+
+    @Override
+    public Collection<Pair<String, String>> getOutgoingEdges(final String v) {
+        if (!mGraph.contains(v)) {
+            return null;
+        }
+
+        return mEdges.get(mGraph.getIndex(v));
+    }
+
+    @Override
+    public void deleteVertex(final String v) {
+        throw new UnsupportedOperationException("Graph is frozen");
+    }
+
+    @Override
+    public void deleteEdge(final Pair<String, String> e) {
+        throw new UnsupportedOperationException("Graph is frozen");
+    }
+}
@@ -0,0 +1,158 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+import edu.iastate.cs311.f13.hw6.IMaxFlowAlgorithms;
+
+/**
+ * Gomory-Hu tree of an undirected capacity network, built with Gusfield's
+ * algorithm on top of an IMaxFlowAlgorithms implementation. The side of each
+ * cut comes from MinCut.
+ *
+ * The network is an IGraph where every edge u -> v also has v -> u with the
+ * same capacity. Building the tree takes n - 1 calls to maxFlow, after which
+ * the min cut between any two vertices is looked up in O(1).
+ */
+public final class GomoryHuTree {
+    /** Vertices of the network, vertex i of the tree is mVertices.get(i). */
+    private final List<String> mVertices;
+
+    /** Index of every vertex. */
+    private final Map<String, Integer> mIndex;
+
+    /** Parent of every vertex in the tree, the root is its own parent. */
+    private final int[] mParent;
+
+    /** Capacity of the edge from every vertex to its parent. */
+    private final int[] mWeight;
+
+    /** Min cut between every pair of vertices. */
+    private final int[][] mMinCut;
+
+    /**
+     * Build the tree.
+     * @param max Max flow implementation to use
+     * @param g Undirected network, every edge must have a reverse edge
+     * @param c Capacity of every edge, equal in both directions
+     */
+    public GomoryHuTree(final IMaxFlowAlgorithms max, final IGraph g, final Map<Pair<String, String>, Integer> c) {
+        mVertices = new ArrayList<String>(g.getVertices());
+        mIndex = new HashMap<String, Integer>();
+
+        int n = mVertices.size();
+
+        for (int i = 0; i < n; i += 1) {
+            mIndex.put(mVertices.get(i), i);
+        }
+
+        mParent = new int[n];
+        mWeight = new int[n];
+
+        for (int s = 1; s < n; s += 1) {
+            int t = mParent[s];
+            String source = mVertices.get(s);
+            Map<Pair<String, String>, Integer> f = max.maxFlow(g, source, mVertices.get(t), c);
+            Set<String> side = new MinCut(g, source, c, f).getSourceSide();
+
+            mWeight[s] = outflow(source, f);
+
+            for (int i = s + 1; i < n; i += 1) {
+                if (mParent[i] == t && side.contains(mVertices.get(i))) {
+                    mParent[i] = s;
+                }
+            }
+        }
+
+        List<List<Integer>> adjacent = new ArrayList<List<Integer>>();
+
+        for (int i = 0; i < n; i += 1) {
+            adjacent.add(new ArrayList<Integer>());
+        }
+
+        for (int i = 1; i < n; i += 1) {
+            adjacent.get(i).add(mParent[i]);
+            adjacent.get(mParent[i]).add(i);
+        }
+
+        mMinCut = new int[n][];
+
+        for (int i = 0; i < n; i += 1) {
+            mMinCut[i] = minCutsFrom(i, adjacent);
+        }
+    }
+
+    /**
+     * Net flow out of a vertex.
+     * @param v Vertex
+     * @param f Flow
+     * @return Flow leaving v minus flow entering v
+     */
+    private static int outflow(final String v, final Map<Pair<String, String>, Integer> f) {
+        int total = 0;
+
+        for (Entry<Pair<String, String>, Integer> e : f.entrySet()) {
+            if (e.getKey().first.equals(v)) {
+                total += e.getValue();
+            }
+
+            if (e.getKey().second.equals(v)) {
+                total -= e.getValue();
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Min cut from one vertex to every other, the lightest edge on the tree
+     * path between them.
+     *
+     * @param root Vertex to start from
+     * @param adjacent Neighbors of every vertex in the tree
+     * @return Min cut to every vertex, Integer.MAX_VALUE for the root itself
+     */
+    private int[] minCutsFrom(final int root, final List<List<Integer>> adjacent) {
+        int n = mVertices.size();
+        int[] cut = new int[n];
+        boolean[] seen = new boolean[n];
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+
+        cut[root] = Integer.MAX_VALUE;
+        seen[root] = true;
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+
+            for (int u : adjacent.get(v)) {
+                if (!seen[u]) {
+                    int w = mParent[u] == v ? mWeight[u] : mWeight[v];
+
+                    seen[u] = true;
+                    cut[u] = Math.min(cut[v], w);
+                    queue.add(u);
+                }
+            }
+        }
+
+        return cut;
+    }
+
+    /**
+     * Value of the minimum cut between two different vertices, which equals
+     * the max flow between them.
+     *
+     * @param v First vertex
+     * @param u Second vertex
+     * @return Min cut between v and u
+     */
+    public int minCut(final String v, final String u) {
+        return mMinCut[mIndex.get(v)][mIndex.get(u)];
+    }
+}
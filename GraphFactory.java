@@ -0,0 +1,19 @@
+import edu.iastate.cs311.f13.hw6.IGraph;
+
+/**
+ * Source of new empty graphs, so helpers that build graphs can build them
+ * with whichever IGraph implementation is being tested.
+ */
+public interface GraphFactory {
+    /** Factory for the implementation returned by TestRunner.newGraph(). */
+    GraphFactory TEST_RUNNER = new GraphFactory() {
+        public IGraph newGraph() {
+            return TestRunner.newGraph();
+        }
+    };
+
+    /**
+     * @return A new empty graph
+     */
+    IGraph newGraph();
+}
@@ -0,0 +1,731 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Compact binary file format for graphs, so large test and benchmark inputs
+ * can be saved once and loaded with a single memory mapped read instead of
+ * being regenerated every run.
+ *
+ * All values are big endian ints. The layout is:
+ *
+ *     magic, version, flags, n, m, string table size in bytes
+ *     string offsets: n + 1 ints into the string table
+ *     string table: UTF-8 vertex names, padded to a multiple of 4 bytes
+ *     edge offsets: n + 1 ints, edges of vertex i are [offsets[i], offsets[i + 1])
+ *     targets: m ints
+ *     capacities: m ints, only if flags has HAS_CAPACITIES
+ *     times: n ints, only if flags has HAS_TIMES
+ *
+ * Vertices are sorted by their UTF-8 bytes and the targets of every vertex
+ * are sorted by id, so load() doesn't have to build anything: the graph,
+ * capacities and times it returns are read-only views that find vertices
+ * and edges by binary search directly in the mapped file. copyInto()
+ * replays the file into a regular graph when one is needed.
+ */
+public final class GraphFile {
+    /** First int of every graph file. */
+    private static final int MAGIC = 0x43533311;
+
+    /** Current format version. */
+    private static final int VERSION = 2;
+
+    /** Flag set when per-edge capacities are stored. */
+    private static final int HAS_CAPACITIES = 1;
+
+    /** Flag set when per-vertex times are stored. */
+    private static final int HAS_TIMES = 2;
+
+    /** Number of ints in the header. */
+    private static final int HEADER_INTS = 6;
+
+    /** Bytes per int. */
+    private static final int INT_BYTES = 4;
+
+    /** Mask to read a byte as unsigned. */
+    private static final int BYTE_MASK = 0xff;
+
+    /** Encoding of vertex names. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Order of encoded vertex names in the file: unsigned bytes, then length. */
+    private static final Comparator<byte[]> NAME_ORDER = new Comparator<byte[]>() {
+        public int compare(final byte[] a, final byte[] b) {
+            for (int k = 0; k < a.length && k < b.length; k += 1) {
+                int x = a[k] & BYTE_MASK;
+                int y = b[k] & BYTE_MASK;
+
+                if (x != y) {
+                    return x - y;
+                }
+            }
+
+            return a.length - b.length;
+        }
+    };
+
+    /** The loaded graph. */
+    private final MappedGraph mGraph;
+
+    /** Loaded capacities, or null if the file had none. */
+    private final Map<Pair<String, String>, Integer> mCapacities;
+
+    /** Loaded times, or null if the file had none. */
+    private final Map<String, Integer> mTimes;
+
+    /**
+     * Read-only IGraph over the mapped arrays of a graph file.
+     */
+    private static final class MappedGraph implements IGraph {
+        /** Number of vertices. */
+        private final int mSize;
+
+        /** String table. */
+        private final ByteBuffer mNames;
+
+        /** Start of every name in mNames, n + 1 entries. */
+        private final IntBuffer mNameOffsets;
+
+        /** Start of the edges of every vertex in mTargets, n + 1 entries. */
+        private final IntBuffer mEdgeOffsets;
+
+        /** Head id of every edge. */
+        private final IntBuffer mTargets;
+
+        /**
+         * @param size Number of vertices
+         * @param names String table
+         * @param nameOffsets Start of every name
+         * @param edgeOffsets Start of the edges of every vertex
+         * @param targets Head id of every edge
+         */
+        MappedGraph(final int size, final ByteBuffer names, final IntBuffer nameOffsets,
+                final IntBuffer edgeOffsets, final IntBuffer targets) {
+            mSize = size;
+            mNames = names;
+            mNameOffsets = nameOffsets;
+            mEdgeOffsets = edgeOffsets;
+            mTargets = targets;
+        }
+
+        /**
+         * Decode the name of a vertex.
+         * @param i Vertex id
+         * @return Vertex name
+         */
+        String name(final int i) {
+            int start = mNameOffsets.get(i);
+            byte[] name = new byte[mNameOffsets.get(i + 1) - start];
+
+            for (int k = 0; k < name.length; k += 1) {
+                name[k] = mNames.get(start + k);
+            }
+
+            return new String(name, UTF8);
+        }
+
+        /**
+         * Compare an encoded name against the name of a vertex, in NAME_ORDER.
+         * @param key Encoded name
+         * @param i Vertex id
+         * @return Negative, zero or positive as key sorts before, with or after
+         */
+        private int compare(final byte[] key, final int i) {
+            int start = mNameOffsets.get(i);
+            int length = mNameOffsets.get(i + 1) - start;
+
+            for (int k = 0; k < key.length && k < length; k += 1) {
+                int x = key[k] & BYTE_MASK;
+                int y = mNames.get(start + k) & BYTE_MASK;
+
+                if (x != y) {
+                    return x - y;
+                }
+            }
+
+            return key.length - length;
+        }
+
+        /**
+         * Find a vertex by binary search over the sorted names.
+         * @param v Vertex name, may be any object
+         * @return Vertex id, or -1 if there is no such vertex
+         */
+        int index(final Object v) {
+            if (!(v instanceof String)) {
+                return -1;
+            }
+
+            byte[] key = ((String) v).getBytes(UTF8);
+            int lo = 0;
+            int hi = mSize - 1;
+
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compare(key, mid);
+
+                if (c == 0) {
+                    return mid;
+                } else if (c < 0) {
+                    hi = mid - 1;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Find an edge by binary search over the sorted targets.
+         * @param e Edge, may be any object
+         * @return Position of the edge in the targets, or -1 if there is no
+         *         such edge
+         */
+        int edge(final Object e) {
+            if (!(e instanceof Pair)) {
+                return -1;
+            }
+
+            int from = index(((Pair<?, ?>) e).first);
+            int to = index(((Pair<?, ?>) e).second);
+
+            if (from == -1 || to == -1) {
+                return -1;
+            }
+
+            int lo = mEdgeOffsets.get(from);
+            int hi = mEdgeOffsets.get(from + 1) - 1;
+
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int target = mTargets.get(mid);
+
+                if (target == to) {
+                    return mid;
+                } else if (target > to) {
+                    hi = mid - 1;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * @return Number of vertices
+         */
+        int size() {
+            return mSize;
+        }
+
+        /**
+         * @param i Vertex id
+         * @return Position of its first edge in the targets
+         */
+        int firstEdge(final int i) {
+            return mEdgeOffsets.get(i);
+        }
+
+        /**
+         * @param k Position of an edge in the targets
+         * @return Head id of the edge
+         */
+        int target(final int k) {
+            return mTargets.get(k);
+        }
+
+        @Override
+        public void addVertex(final String v) {
+            throw new UnsupportedOperationException("Graph file is read only");
+        }
+
+        @Override
+        public void addEdge(final Pair<String, String> e) {
+            throw new UnsupportedOperationException("Graph file is read only");
+        }
+
+        @Override
+        public Collection<String> getVertices() {
+            return new AbstractList<String>() {
+                public String get(final int i) {
+                    return name(i);
+                }
+
+                public int size() {
+                    return mSize;
+                }
+
+                public boolean contains(final Object o) {
+                    return index(o) != -1;
+                }
+            };
+        }
+
+        @Override
+        public Collection<Pair<String, String>> getOutgoingEdges(final String v) {
+            final int i = index(v);
+
+            if (i == -1) {
+                return null;
+            }
+
+            final int start = mEdgeOffsets.get(i);
+            final int end = mEdgeOffsets.get(i + 1);
+
+            return new AbstractList<Pair<String, String>>() {
+                public Pair<String, String> get(final int k) {
+                    if (k < 0 || k >= end - start) {
+                        throw new IndexOutOfBoundsException("Edge " + k + " of " + (end - start));
+                    }
+
+                    return new Pair<String, String>(v, name(mTargets.get(start + k)));
+                }
+
+                public int size() {
+                    return end - start;
+                }
+
+                public boolean contains(final Object o) {
+                    int k = edge(o);
+                    return k >= start && k < end;
+                }
+            };
+        }
+
+        @Override
+        public void deleteVertex(final String v) {
+            throw new UnsupportedOperationException("Graph file is read only");
+        }
+
+        @Override
+        public void deleteEdge(final Pair<String, String> e) {
+            throw new UnsupportedOperationException("Graph file is read only");
+        }
+    }
+
+    /**
+     * Read-only map over the per-edge capacities of a graph file.
+     */
+    private static final class MappedCapacities extends AbstractMap<Pair<String, String>, Integer> {
+        /** The graph the capacities belong to. */
+        private final MappedGraph mGraph;
+
+        /** Capacity of every edge, in target order. */
+        private final IntBuffer mValues;
+
+        /** Number of edges. */
+        private final int mEdges;
+
+        /**
+         * @param graph The graph the capacities belong to
+         * @param values Capacity of every edge
+         * @param edges Number of edges
+         */
+        MappedCapacities(final MappedGraph graph, final IntBuffer values, final int edges) {
+            mGraph = graph;
+            mValues = values;
+            mEdges = edges;
+        }
+
+        @Override
+        public Integer get(final Object e) {
+            int k = mGraph.edge(e);
+            return k == -1 ? null : mValues.get(k);
+        }
+
+        @Override
+        public boolean containsKey(final Object e) {
+            return mGraph.edge(e) != -1;
+        }
+
+        @Override
+        public int size() {
+            return mEdges;
+        }
+
+        @Override
+        public Set<Map.Entry<Pair<String, String>, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<Pair<String, String>, Integer>>() {
+                public int size() {
+                    return mEdges;
+                }
+
+                public Iterator<Map.Entry<Pair<String, String>, Integer>> iterator() {
+                    return new Iterator<Map.Entry<Pair<String, String>, Integer>>() {
+                        /** Position of the next edge. */
+                        private int mNext;
+
+                        /** Tail of the next edge. */
+                        private int mTail;
+
+                        /** Name of mTail. */
+                        private String mTailName;
+
+                        public boolean hasNext() {
+                            return mNext < mEdges;
+                        }
+
+                        public Map.Entry<Pair<String, String>, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            while (mGraph.firstEdge(mTail + 1) <= mNext) {
+                                mTail += 1;
+                                mTailName = null;
+                            }
+
+                            if (mTailName == null) {
+                                mTailName = mGraph.name(mTail);
+                            }
+
+                            Pair<String, String> e = new Pair<String, String>(
+                                    mTailName, mGraph.name(mGraph.target(mNext)));
+                            Integer c = mValues.get(mNext);
+
+                            mNext += 1;
+                            return new AbstractMap.SimpleImmutableEntry<Pair<String, String>, Integer>(e, c);
+                        }
+
+                        public void remove() {
+                            throw new UnsupportedOperationException("Graph file is read only");
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * Read-only map over the per-vertex times of a graph file.
+     */
+    private static final class MappedTimes extends AbstractMap<String, Integer> {
+        /** The graph the times belong to. */
+        private final MappedGraph mGraph;
+
+        /** Time of every vertex, by id. */
+        private final IntBuffer mValues;
+
+        /**
+         * @param graph The graph the times belong to
+         * @param values Time of every vertex
+         */
+        MappedTimes(final MappedGraph graph, final IntBuffer values) {
+            mGraph = graph;
+            mValues = values;
+        }
+
+        @Override
+        public Integer get(final Object v) {
+            int i = mGraph.index(v);
+            return i == -1 ? null : mValues.get(i);
+        }
+
+        @Override
+        public boolean containsKey(final Object v) {
+            return mGraph.index(v) != -1;
+        }
+
+        @Override
+        public int size() {
+            return mGraph.size();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+                public int size() {
+                    return mGraph.size();
+                }
+
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    return new Iterator<Map.Entry<String, Integer>>() {
+                        /** Id of the next vertex. */
+                        private int mNext;
+
+                        public boolean hasNext() {
+                            return mNext < mGraph.size();
+                        }
+
+                        public Map.Entry<String, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            String v = mGraph.name(mNext);
+                            Integer t = mValues.get(mNext);
+
+                            mNext += 1;
+                            return new AbstractMap.SimpleImmutableEntry<String, Integer>(v, t);
+                        }
+
+                        public void remove() {
+                            throw new UnsupportedOperationException("Graph file is read only");
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * @param graph The loaded graph
+     * @param capacities Loaded capacities, or null
+     * @param times Loaded times, or null
+     */
+    private GraphFile(final MappedGraph graph, final Map<Pair<String, String>, Integer> capacities,
+            final Map<String, Integer> times) {
+        mGraph = graph;
+        mCapacities = capacities;
+        mTimes = times;
+    }
+
+    /**
+     * @return The loaded graph, a read-only view of the mapped file
+     */
+    public IGraph getGraph() {
+        return mGraph;
+    }
+
+    /**
+     * @return Capacity of every edge as a read-only view of the mapped file,
+     *         or null if the file had none
+     */
+    public Map<Pair<String, String>, Integer> getCapacities() {
+        return mCapacities;
+    }
+
+    /**
+     * @return Time of every vertex as a read-only view of the mapped file, or
+     *         null if the file had none
+     */
+    public Map<String, Integer> getTimes() {
+        return mTimes;
+    }
+
+    /**
+     * Add every vertex and edge of the loaded graph to another graph, for
+     * when a graph that can be changed is needed, for example
+     * copyInto(TestRunner.newGraph()).
+     *
+     * @param g Graph to add to
+     * @return The same graph
+     */
+    public IGraph copyInto(final IGraph g) {
+        int n = mGraph.size();
+        String[] vertices = new String[n];
+
+        for (int i = 0; i < n; i += 1) {
+            vertices[i] = mGraph.name(i);
+            g.addVertex(vertices[i]);
+        }
+
+        for (int i = 0; i < n; i += 1) {
+            for (int k = mGraph.firstEdge(i); k < mGraph.firstEdge(i + 1); k += 1) {
+                g.addEdge(new Pair<String, String>(vertices[i], vertices[mGraph.target(k)]));
+            }
+        }
+
+        return g;
+    }
+
+    /**
+     * Write a graph to a file.
+     * @param file File to write
+     * @param g Graph to write
+     * @param capacities Edge capacities to store, or null. Missing edges are
+     * stored as 0.
+     * @param times Vertex times to store, or null. Missing vertices are stored
+     * as 0.
+     * @throws IOException If the file can't be written
+     */
+    public static void write(final File file, final IGraph g,
+            final Map<Pair<String, String>, Integer> capacities,
+            final Map<String, Integer> times) throws IOException {
+        final HashMap<String, byte[]> encoded = new HashMap<String, byte[]>();
+        List<String> vertices = new ArrayList<String>(g.getVertices());
+
+        for (String v : vertices) {
+            encoded.put(v, v.getBytes(UTF8));
+        }
+
+        Collections.sort(vertices, new Comparator<String>() {
+            public int compare(final String a, final String b) {
+                return NAME_ORDER.compare(encoded.get(a), encoded.get(b));
+            }
+        });
+
+        final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+        int n = vertices.size();
+        int m = 0;
+        int stringBytes = 0;
+
+        for (String v : vertices) {
+            ids.put(v, ids.size());
+            stringBytes += encoded.get(v).length;
+            m += g.getOutgoingEdges(v).size();
+        }
+
+        int paddedBytes = (stringBytes + INT_BYTES - 1) / INT_BYTES * INT_BYTES;
+        int flags = (capacities != null ? HAS_CAPACITIES : 0) | (times != null ? HAS_TIMES : 0);
+        int ints = HEADER_INTS + (n + 1) + (n + 1) + m
+            + (capacities != null ? m : 0) + (times != null ? n : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(ints * INT_BYTES + paddedBytes).order(ByteOrder.BIG_ENDIAN);
+
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(n).putInt(m).putInt(paddedBytes);
+
+        int offset = 0;
+
+        for (String v : vertices) {
+            buffer.putInt(offset);
+            offset += encoded.get(v).length;
+        }
+
+        buffer.putInt(offset);
+
+        for (String v : vertices) {
+            buffer.put(encoded.get(v));
+        }
+
+        buffer.position(buffer.position() + paddedBytes - stringBytes);
+
+        List<Pair<String, String>> edges = new ArrayList<Pair<String, String>>(m);
+        Comparator<Pair<String, String>> byHead = new Comparator<Pair<String, String>>() {
+            public int compare(final Pair<String, String> a, final Pair<String, String> b) {
+                return ids.get(a.second) - ids.get(b.second);
+            }
+        };
+
+        offset = 0;
+
+        for (String v : vertices) {
+            List<Pair<String, String>> out = new ArrayList<Pair<String, String>>(g.getOutgoingEdges(v));
+
+            Collections.sort(out, byHead);
+            buffer.putInt(offset);
+            edges.addAll(out);
+            offset += out.size();
+        }
+
+        buffer.putInt(offset);
+
+        for (Pair<String, String> e : edges) {
+            buffer.putInt(ids.get(e.second));
+        }
+
+        if (capacities != null) {
+            for (Pair<String, String> e : edges) {
+                Integer c = capacities.get(e);
+                buffer.putInt(c == null ? 0 : c);
+            }
+        }
+
+        if (times != null) {
+            for (String v : vertices) {
+                Integer t = times.get(v);
+                buffer.putInt(t == null ? 0 : t);
+            }
+        }
+
+        FileOutputStream out = new FileOutputStream(file);
+
+        try {
+            out.write(buffer.array());
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Map a graph file. Only the header is read; the graph, capacities and
+     * times read the mapped file when they are used.
+     *
+     * @param file File to load
+     * @return The loaded graph, with capacities and times if the file had them
+     * @throws IOException If the file can't be read or isn't a graph file
+     */
+    public static GraphFile load(final File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        MappedByteBuffer buffer;
+
+        try {
+            FileChannel channel = raf.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        IntBuffer header = buffer.asIntBuffer();
+
+        if (header.get(0) != MAGIC || header.get(1) != VERSION) {
+            throw new IOException("Not a graph file: " + file);
+        }
+
+        int flags = header.get(2);
+        int n = header.get(3);
+        int m = header.get(4);
+        int paddedBytes = header.get(5);
+
+        IntBuffer nameOffsets = slice(buffer, HEADER_INTS * INT_BYTES);
+        int stringStart = (HEADER_INTS + n + 1) * INT_BYTES;
+        IntBuffer edgeOffsets = slice(buffer, stringStart + paddedBytes);
+        IntBuffer targets = slice(buffer, stringStart + paddedBytes + (n + 1) * INT_BYTES);
+        int after = stringStart + paddedBytes + (n + 1 + m) * INT_BYTES;
+
+        buffer.position(stringStart);
+
+        MappedGraph g = new MappedGraph(n, buffer.slice(), nameOffsets, edgeOffsets, targets);
+        Map<Pair<String, String>, Integer> capacities = null;
+        Map<String, Integer> times = null;
+
+        if ((flags & HAS_CAPACITIES) != 0) {
+            capacities = new MappedCapacities(g, slice(buffer, after), m);
+            after += m * INT_BYTES;
+        }
+
+        if ((flags & HAS_TIMES) != 0) {
+            times = new MappedTimes(g, slice(buffer, after));
+        }
+
+        return new GraphFile(g, capacities, times);
+    }
+
+    /**
+     * View of the mapped file as ints, starting at a byte offset.
+     * @param buffer Mapped file
+     * @param offset Byte offset, a multiple of 4
+     * @return Int view starting at the offset
+     */
+    private static IntBuffer slice(final ByteBuffer buffer, final int offset) {
+        buffer.position(offset);
+        return buffer.slice().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+    }
+}
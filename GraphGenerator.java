@@ -0,0 +1,470 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Seeded generator for large graphs, used by the scale tests and the
+ * benchmarks.
+ *
+ * Graphs are built through a GraphFactory, by default TestRunner.newGraph(),
+ * so they test the same IGraph implementation as everything else. Two
+ * generators created with the same seed produce the same graphs when the same
+ * methods are called in the same order. Random weights are handed out in
+ * vertex order rather than in the iteration order of the graph, so they are
+ * the same for every IGraph implementation too.
+ */
+public final class GraphGenerator {
+    /** Name of the source vertex in generated flow networks and grids. */
+    public static final String SOURCE = "s";
+
+    /** Name of the sink vertex in generated flow networks and grids. */
+    public static final String SINK = "t";
+
+    /**
+     * Order of vertices that doesn't depend on the IGraph implementation:
+     * generated vertices by index, then any other vertices by name.
+     */
+    private static final Comparator<String> VERTEX_ORDER = new Comparator<String>() {
+        public int compare(final String a, final String b) {
+            int i = generatedIndex(a);
+            int j = generatedIndex(b);
+
+            if ((i == -1) != (j == -1)) {
+                return i == -1 ? 1 : -1;
+            }
+
+            if (i != j) {
+                return i < j ? -1 : 1;
+            }
+
+            return a.compareTo(b);
+        }
+    };
+
+    /** Random number generator, all randomness comes from here. */
+    private final Random mRandom;
+
+    /** Where new graphs come from. */
+    private final GraphFactory mFactory;
+
+    /**
+     * @param seed Seed for the random number generator
+     */
+    public GraphGenerator(final long seed) {
+        this(seed, GraphFactory.TEST_RUNNER);
+    }
+
+    /**
+     * @param seed Seed for the random number generator
+     * @param factory Where new graphs come from
+     */
+    public GraphGenerator(final long seed, final GraphFactory factory) {
+        mRandom = new Random(seed);
+        mFactory = factory;
+    }
+
+    /**
+     * Name of the i'th generated vertex.
+     * @param i Index of the vertex
+     * @return Vertex name
+     */
+    public static String vertex(final int i) {
+        return "v" + i;
+    }
+
+    /**
+     * Index of a generated vertex, the inverse of vertex().
+     * @param v Vertex name
+     * @return Index of the vertex
+     */
+    public static int index(final String v) {
+        return Integer.parseInt(v.substring(1));
+    }
+
+    /**
+     * Index of a vertex if it is named like a generated vertex.
+     * @param v Vertex name
+     * @return Its index, or -1 for any other name
+     */
+    private static int generatedIndex(final String v) {
+        if (v.length() < 2 || v.length() > 10 || v.charAt(0) != 'v') {
+            return -1;
+        }
+
+        for (int k = 1; k < v.length(); k += 1) {
+            if (!Character.isDigit(v.charAt(k))) {
+                return -1;
+            }
+        }
+
+        return index(v);
+    }
+
+    /**
+     * Vertices of a graph in VERTEX_ORDER.
+     * @param g Graph to read
+     * @return Sorted vertices
+     */
+    private static List<String> sortedVertices(final IGraph g) {
+        List<String> vertices = new ArrayList<String>(g.getVertices());
+        Collections.sort(vertices, VERTEX_ORDER);
+        return vertices;
+    }
+
+    /**
+     * Outgoing edges of a vertex sorted by head in VERTEX_ORDER.
+     * @param g Graph to read
+     * @param v Tail of the edges
+     * @return Sorted edges
+     */
+    private static List<Pair<String, String>> sortedEdges(final IGraph g, final String v) {
+        List<Pair<String, String>> edges = new ArrayList<Pair<String, String>>(g.getOutgoingEdges(v));
+
+        Collections.sort(edges, new Comparator<Pair<String, String>>() {
+            public int compare(final Pair<String, String> a, final Pair<String, String> b) {
+                return VERTEX_ORDER.compare(a.second, b.second);
+            }
+        });
+
+        return edges;
+    }
+
+    /**
+     * Create a graph with vertices 0 to n - 1 and no edges.
+     * @param n Number of vertices
+     * @return The new graph
+     */
+    private IGraph withVertices(final int n) {
+        IGraph g = mFactory.newGraph();
+
+        for (int i = 0; i < n; i += 1) {
+            g.addVertex(vertex(i));
+        }
+
+        return g;
+    }
+
+    /**
+     * Add an edge between two vertices by name.
+     * @param g Graph to add to
+     * @param v Tail of the edge
+     * @param u Head of the edge
+     */
+    private static void edge(final IGraph g, final String v, final String u) {
+        g.addEdge(new Pair<String, String>(v, u));
+    }
+
+    /**
+     * A single path v0 -> v1 -> ... -> v(n - 1).
+     * @param n Number of vertices
+     * @return The chain
+     */
+    public IGraph chain(final int n) {
+        IGraph g = withVertices(n);
+
+        for (int i = 0; i + 1 < n; i += 1) {
+            edge(g, vertex(i), vertex(i + 1));
+        }
+
+        return g;
+    }
+
+    /**
+     * One root v0 with an edge to each of v1 to vn, which all have an edge to
+     * v(n + 1).
+     *
+     * @param width Number of vertices between the root and the last vertex
+     * @return The fan-out graph
+     */
+    public IGraph fanOut(final int width) {
+        IGraph g = withVertices(width + 2);
+
+        for (int i = 1; i <= width; i += 1) {
+            edge(g, vertex(0), vertex(i));
+            edge(g, vertex(i), vertex(width + 1));
+        }
+
+        return g;
+    }
+
+    /**
+     * Complete directed graph: an edge between every ordered pair of distinct
+     * vertices, so every pair is connected both ways.
+     *
+     * @param n Number of vertices
+     * @return The complete graph
+     */
+    public IGraph complete(final int n) {
+        IGraph g = withVertices(n);
+
+        for (int i = 0; i < n; i += 1) {
+            for (int j = 0; j < n; j += 1) {
+                if (i != j) {
+                    edge(g, vertex(i), vertex(j));
+                }
+            }
+        }
+
+        return g;
+    }
+
+    /**
+     * Random undirected graph: every pair of vertices is connected with
+     * probability p, by an edge in each direction.
+     *
+     * Use symmetricCapacities() to get a capacity map for it.
+     *
+     * @param n Number of vertices
+     * @param p Probability of each pair being connected
+     * @return The graph
+     */
+    public IGraph randomUndirected(final int n, final double p) {
+        IGraph g = withVertices(n);
+
+        for (int i = 0; i < n; i += 1) {
+            for (int j = i + 1; j < n; j += 1) {
+                if (mRandom.nextDouble() < p) {
+                    edge(g, vertex(i), vertex(j));
+                    edge(g, vertex(j), vertex(i));
+                }
+            }
+        }
+
+        return g;
+    }
+
+    /**
+     * Random DAG where every pair i &lt; j gets the edge vi -> vj with
+     * probability p (Erdos-Renyi on the upper triangle).
+     *
+     * Pairs are skipped geometrically, so the cost is proportional to the
+     * number of edges rather than n squared.
+     *
+     * @param n Number of vertices
+     * @param p Probability of each forward edge
+     * @return The DAG
+     */
+    public IGraph randomDag(final int n, final double p) {
+        IGraph g = withVertices(n);
+
+        if (p <= 0) {
+            return g;
+        }
+
+        double logQ = Math.log(1.0 - Math.min(p, 1.0 - 1e-12));
+        int i = 0;
+        int j = 0;
+
+        while (i < n) {
+            double r = 1.0 - mRandom.nextDouble();
+            j += 1 + (int) Math.floor(Math.log(r) / logQ);
+
+            while (j >= n && i < n) {
+                i += 1;
+                j = j - n + i + 1;
+            }
+
+            if (i < n) {
+                edge(g, vertex(i), vertex(j));
+            }
+        }
+
+        return g;
+    }
+
+    /**
+     * Random layered DAG. Vertex v(k * width + i) is the i'th vertex in layer k,
+     * and each vertex has edges to degree random vertices of the next layer.
+     *
+     * @param layers Number of layers
+     * @param width Number of vertices per layer
+     * @param degree Outgoing edges per vertex, a target that is drawn twice
+     *        only gets one edge
+     * @return The DAG
+     */
+    public IGraph layeredDag(final int layers, final int width, final int degree) {
+        IGraph g = withVertices(layers * width);
+        int[] drawnBy = new int[width];
+
+        Arrays.fill(drawnBy, -1);
+
+        for (int k = 0; k + 1 < layers; k += 1) {
+            for (int i = 0; i < width; i += 1) {
+                int v = k * width + i;
+
+                for (int d = 0; d < degree; d += 1) {
+                    int j = mRandom.nextInt(width);
+
+                    if (drawnBy[j] != v) {
+                        drawnBy[j] = v;
+                        edge(g, vertex(v), vertex((k + 1) * width + j));
+                    }
+                }
+            }
+        }
+
+        return g;
+    }
+
+    /**
+     * Layered flow network: a random layered DAG with SOURCE connected to
+     * every vertex of the first layer and every vertex of the last layer
+     * connected to SINK. Each layer also gets a few random edges back to the
+     * previous layer, so the network has cycles and antiparallel edges.
+     *
+     * Use capacities() to get a capacity map for it.
+     *
+     * @param layers Number of layers
+     * @param width Number of vertices per layer
+     * @param degree Outgoing forward edges per vertex
+     * @return The flow network
+     */
+    public IGraph flowNetwork(final int layers, final int width, final int degree) {
+        IGraph g = layeredDag(layers, width, degree);
+
+        g.addVertex(SOURCE);
+        g.addVertex(SINK);
+
+        for (int i = 0; i < width; i += 1) {
+            edge(g, SOURCE, vertex(i));
+            edge(g, vertex((layers - 1) * width + i), SINK);
+        }
+
+        for (int k = 1; k < layers; k += 1) {
+            int v = k * width + mRandom.nextInt(width);
+            int u = (k - 1) * width + mRandom.nextInt(width);
+            edge(g, vertex(v), vertex(u));
+        }
+
+        return g;
+    }
+
+    /**
+     * Grid of rows x cols vertices with edges to the right, up and down.
+     * SOURCE has an edge to every vertex in the first column and every vertex
+     * in the last column has an edge to SINK, so there are exactly rows
+     * vertex-disjoint paths from SOURCE to SINK.
+     *
+     * Vertex v(r * cols + c) is in row r and column c.
+     *
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @return The grid
+     */
+    public IGraph grid(final int rows, final int cols) {
+        IGraph g = withVertices(rows * cols);
+
+        g.addVertex(SOURCE);
+        g.addVertex(SINK);
+
+        for (int r = 0; r < rows; r += 1) {
+            edge(g, SOURCE, vertex(r * cols));
+            edge(g, vertex(r * cols + cols - 1), SINK);
+
+            for (int c = 0; c < cols; c += 1) {
+                int v = r * cols + c;
+
+                if (c + 1 < cols) {
+                    edge(g, vertex(v), vertex(v + 1));
+                }
+
+                if (r + 1 < rows) {
+                    edge(g, vertex(v), vertex(v + cols));
+                }
+
+                if (r > 0) {
+                    edge(g, vertex(v), vertex(v - cols));
+                }
+            }
+        }
+
+        return g;
+    }
+
+    /**
+     * Random capacity in [1, max] for every edge of the graph, drawn in
+     * vertex order.
+     * @param g Graph to read edges from
+     * @param max Largest capacity
+     * @return Capacity map
+     */
+    public Map<Pair<String, String>, Integer> capacities(final IGraph g, final int max) {
+        Map<Pair<String, String>, Integer> c = new HashMap<Pair<String, String>, Integer>();
+
+        for (String v : sortedVertices(g)) {
+            for (Pair<String, String> e : sortedEdges(g, v)) {
+                c.put(e, 1 + mRandom.nextInt(max));
+            }
+        }
+
+        return c;
+    }
+
+    /**
+     * Random capacity in [1, max] for every edge of the graph, the same in
+     * both directions of an undirected edge, drawn in vertex order.
+     *
+     * @param g Graph to read edges from
+     * @param max Largest capacity
+     * @return Capacity map
+     */
+    public Map<Pair<String, String>, Integer> symmetricCapacities(final IGraph g, final int max) {
+        Map<Pair<String, String>, Integer> c = new HashMap<Pair<String, String>, Integer>();
+
+        for (String v : sortedVertices(g)) {
+            for (Pair<String, String> e : sortedEdges(g, v)) {
+                Pair<String, String> back = new Pair<String, String>(e.second, e.first);
+
+                if (c.containsKey(back)) {
+                    c.put(e, c.get(back));
+                } else {
+                    c.put(e, 1 + mRandom.nextInt(max));
+                }
+            }
+        }
+
+        return c;
+    }
+
+    /**
+     * Random weight in [1, max] for every vertex of the graph, drawn in vertex
+     * order, usable as task times for minScheduleLength or as vertex
+     * capacities.
+     *
+     * @param g Graph to read vertices from
+     * @param max Largest weight
+     * @return Weight map
+     */
+    public Map<String, Integer> weights(final IGraph g, final int max) {
+        Map<String, Integer> w = new HashMap<String, Integer>();
+
+        for (String v : sortedVertices(g)) {
+            w.put(v, 1 + mRandom.nextInt(max));
+        }
+
+        return w;
+    }
+
+    /**
+     * Count the edges of a graph.
+     * @param g Graph to count
+     * @return Number of edges
+     */
+    public static int edgeCount(final IGraph g) {
+        int m = 0;
+
+        for (String v : g.getVertices()) {
+            m += g.getOutgoingEdges(v).size();
+        }
+
+        return m;
+    }
+}
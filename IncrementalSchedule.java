@@ -0,0 +1,206 @@
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+
+/**
+ * minScheduleLength of a DAG of tasks that keeps its answer up to date while
+ * task times and edges change, instead of recomputing it from scratch.
+ *
+ * The finish time of every task is cached. After a change only the tasks
+ * whose finish time may have moved are recomputed, in topological order, and
+ * the descendants of a task are only visited if its finish time actually
+ * changed. The topological order itself, along with the current edges, is
+ * kept by a DynamicTopologicalOrder, which only reorders the tasks between
+ * the two ends of an edge that goes against the order. A count of every
+ * finish time keeps the makespan available in O(1).
+ */
+public final class IncrementalSchedule {
+    /** The tasks with dense ids, as they were when the schedule was built. */
+    private final IndexedGraph mGraph;
+
+    /** Time of every task. */
+    private final int[] mTime;
+
+    /** Finish time of every task. */
+    private final int[] mFinish;
+
+    /** Topological order and current edges of the tasks. */
+    private final DynamicTopologicalOrder mOrder;
+
+    /** Number of tasks finishing at each time. */
+    private final TreeMap<Integer, Integer> mFinishCounts;
+
+    /** Tasks waiting to be recomputed, ordered by rank. */
+    private final IntHeap mQueue;
+
+    /** True for the tasks in mQueue. */
+    private final boolean[] mQueued;
+
+    /** Cached maximum of mFinishCounts. */
+    private int mMakespan;
+
+    /**
+     * Compute the initial schedule.
+     * @param g DAG of tasks, an edge v -> u means u can't start until v is done
+     * @param times Time of every task
+     * @throws CycleException If the graph has a cycle
+     */
+    public IncrementalSchedule(final IGraph g, final Map<String, Integer> times) {
+        mGraph = IndexedGraph.of(g);
+
+        int n = mGraph.size();
+        int[] order = mGraph.topologicalOrder();
+
+        mOrder = new DynamicTopologicalOrder(mGraph);
+        mTime = mGraph.times(times);
+        mFinish = new int[n];
+        mFinishCounts = new TreeMap<Integer, Integer>();
+        mQueue = new IntHeap(n);
+        mQueued = new boolean[n];
+
+        for (int k = 0; k < n; k += 1) {
+            int v = order[k];
+            mFinish[v] = start(v) + mTime[v];
+            count(mFinish[v], 1);
+        }
+
+        mMakespan = n == 0 ? 0 : mFinishCounts.lastKey();
+    }
+
+    /**
+     * @return Current minScheduleLength, in O(1)
+     */
+    public int getMakespan() {
+        return mMakespan;
+    }
+
+    /**
+     * @param v Task
+     * @return Current finish time of the task
+     */
+    public int getFinish(final String v) {
+        return mFinish[mGraph.getIndex(v)];
+    }
+
+    /**
+     * The topological order the schedule currently keeps, in O(n).
+     * @return Every task, each before the tasks that wait for it
+     */
+    public List<String> getOrder() {
+        return mOrder.getOrder();
+    }
+
+    /**
+     * Change the time of a task.
+     * @param v Task
+     * @param time New time
+     */
+    public void setTime(final String v, final int time) {
+        int i = mGraph.getIndex(v);
+
+        mTime[i] = time;
+        enqueue(i);
+        propagate();
+    }
+
+    /**
+     * Add the edge v -> u, does nothing if it is already there.
+     * @param v Task that has to finish first
+     * @param u Task that waits for it
+     * @throws CycleException If the edge would create a cycle, the schedule
+     *         is left unchanged
+     */
+    public void addEdge(final String v, final String u) {
+        int head = mGraph.getIndex(u);
+
+        if (mOrder.addEdge(mGraph.getIndex(v), head)) {
+            enqueue(head);
+            propagate();
+        }
+    }
+
+    /**
+     * Remove the edge v -> u, does nothing if it isn't there.
+     * @param v Task that had to finish first
+     * @param u Task that waited for it
+     */
+    public void deleteEdge(final String v, final String u) {
+        int head = mGraph.getIndex(u);
+
+        if (mOrder.deleteEdge(mGraph.getIndex(v), head)) {
+            enqueue(head);
+            propagate();
+        }
+    }
+
+    /**
+     * Earliest start of a task from the cached finish times of its
+     * predecessors.
+     * @param v Task id
+     * @return Start time
+     */
+    private int start(final int v) {
+        int start = 0;
+
+        for (int k = 0; k < mOrder.getPredecessorCount(v); k += 1) {
+            start = Math.max(start, mFinish[mOrder.getPredecessor(v, k)]);
+        }
+
+        return start;
+    }
+
+    /**
+     * Recompute the queued tasks in rank order. A task whose finish time
+     * doesn't change stops the propagation, so its successors are only
+     * queued if something else reaches them.
+     */
+    private void propagate() {
+        while (!mQueue.isEmpty()) {
+            int v = mQueue.pop();
+            int finish = start(v) + mTime[v];
+
+            mQueued[v] = false;
+
+            if (finish != mFinish[v]) {
+                count(mFinish[v], -1);
+                count(finish, 1);
+                mFinish[v] = finish;
+
+                for (int k = 0; k < mOrder.getSuccessorCount(v); k += 1) {
+                    enqueue(mOrder.getSuccessor(v, k));
+                }
+            }
+        }
+
+        mMakespan = mFinishCounts.isEmpty() ? 0 : mFinishCounts.lastKey();
+    }
+
+    /**
+     * Queue a task to be recomputed, unless it already is.
+     * @param v Task id
+     */
+    private void enqueue(final int v) {
+        if (!mQueued[v]) {
+            mQueued[v] = true;
+            mQueue.push(mOrder.getRank(v), v);
+        }
+    }
+
+    /**
+     * Change the number of tasks finishing at a time.
+     * @param finish Finish time
+     * @param delta Change in the count
+     */
+    private void count(final int finish, final int delta) {
+        Integer old = mFinishCounts.get(finish);
+        int c = (old == null ? 0 : old) + delta;
+
+        if (c == 0) {
+            mFinishCounts.remove(finish);
+        } else {
+            mFinishCounts.put(finish, c);
+        }
+    }
+}
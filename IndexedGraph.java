@@ -0,0 +1,268 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Snapshot of an IGraph with dense int ids, for the helpers that run
+ * algorithms of their own over large graphs.
+ *
+ * Vertex i is getVertex(i), and its successors are getSuccessors(i) as ids.
+ * Nothing changes after construction, so one snapshot can be shared between
+ * threads; callers must not write to the arrays it returns.
+ */
+public final class IndexedGraph {
+    /** Name of every vertex. */
+    private final List<String> mVertices;
+
+    /** Id of every vertex. */
+    private final Map<String, Integer> mIndex;
+
+    /** Successor ids of every vertex. */
+    private final int[][] mSuccessors;
+
+    /** In-degree of every vertex, or null until it is first asked for. */
+    private volatile int[] mInDegrees;
+
+    /** Topological order, or null until it is first asked for. */
+    private volatile int[] mOrder;
+
+    /**
+     * Take a snapshot of a graph.
+     * @param g Graph to read
+     */
+    public IndexedGraph(final IGraph g) {
+        mVertices = new ArrayList<String>(g.getVertices());
+        mIndex = new HashMap<String, Integer>();
+
+        for (String v : mVertices) {
+            mIndex.put(v, mIndex.size());
+        }
+
+        mSuccessors = new int[mVertices.size()][];
+
+        for (int v = 0; v < mSuccessors.length; v += 1) {
+            List<Pair<String, String>> edges = new ArrayList<Pair<String, String>>(
+                    g.getOutgoingEdges(mVertices.get(v)));
+
+            mSuccessors[v] = new int[edges.size()];
+
+            for (int k = 0; k < edges.size(); k += 1) {
+                mSuccessors[v][k] = mIndex.get(edges.get(k).second);
+            }
+        }
+    }
+
+    /**
+     * Ids for a graph, reusing the packed graph of a FrozenGraph.
+     * @param g Graph to read
+     * @return The shared snapshot if g is frozen, a new one otherwise
+     */
+    public static IndexedGraph of(final IGraph g) {
+        if (g instanceof FrozenGraph) {
+            return ((FrozenGraph) g).getIndexedGraph();
+        }
+
+        return new IndexedGraph(g);
+    }
+
+    /**
+     * @return Number of vertices
+     */
+    public int size() {
+        return mSuccessors.length;
+    }
+
+    /**
+     * @param v Vertex id
+     * @return Vertex name
+     */
+    public String getVertex(final int v) {
+        return mVertices.get(v);
+    }
+
+    /**
+     * @param v Vertex name
+     * @return Vertex id
+     */
+    public int getIndex(final String v) {
+        return mIndex.get(v);
+    }
+
+    /**
+     * @param v Vertex name
+     * @return True if the graph has the vertex
+     */
+    public boolean contains(final String v) {
+        return mIndex.containsKey(v);
+    }
+
+    /**
+     * @param v Vertex id
+     * @return Ids of the heads of its outgoing edges
+     */
+    public int[] getSuccessors(final int v) {
+        return mSuccessors[v];
+    }
+
+    /**
+     * In-degree of every vertex. The degrees are counted once per snapshot,
+     * and every call gets its own copy to count down.
+     * @return Array indexed by vertex id
+     */
+    public int[] inDegrees() {
+        int[] degree = mInDegrees;
+
+        if (degree == null) {
+            degree = new int[size()];
+
+            for (int[] successors : mSuccessors) {
+                for (int u : successors) {
+                    degree[u] += 1;
+                }
+            }
+
+            mInDegrees = degree;
+        }
+
+        return degree.clone();
+    }
+
+    /**
+     * Task time of every vertex.
+     * @param times Time of every vertex by name
+     * @return Array indexed by vertex id
+     */
+    public int[] times(final Map<String, Integer> times) {
+        int[] time = new int[size()];
+
+        for (int v = 0; v < time.length; v += 1) {
+            time[v] = times.get(mVertices.get(v));
+        }
+
+        return time;
+    }
+
+    /**
+     * Kahn's algorithm over the ids, using the output array as the queue.
+     * The order is found once per snapshot and shared by every caller.
+     * @return Vertex ids in topological order
+     * @throws CycleException If the graph has a cycle
+     */
+    public int[] topologicalOrder() {
+        if (mOrder != null) {
+            return mOrder;
+        }
+
+        int n = size();
+        int[] waiting = inDegrees();
+        int[] order = new int[n];
+        int head = 0;
+        int tail = 0;
+
+        for (int v = 0; v < n; v += 1) {
+            if (waiting[v] == 0) {
+                order[tail] = v;
+                tail += 1;
+            }
+        }
+
+        while (head < tail) {
+            int v = order[head];
+            head += 1;
+
+            for (int u : mSuccessors[v]) {
+                waiting[u] -= 1;
+
+                if (waiting[u] == 0) {
+                    order[tail] = u;
+                    tail += 1;
+                }
+            }
+        }
+
+        if (tail != n) {
+            throw new CycleException(findCycle(waiting));
+        }
+
+        mOrder = order;
+        return order;
+    }
+
+    /**
+     * Topological order by name, for callers that want what
+     * ITopologicalSortAlgorithms.topologicalSort returns. The ids are mapped
+     * back to names only here; the sort itself is topologicalOrder().
+     * @return Vertex names in topological order
+     * @throws CycleException If the graph has a cycle
+     */
+    public List<String> topologicalSort() {
+        int[] order = topologicalOrder();
+        List<String> names = new ArrayList<String>(order.length);
+
+        for (int v : order) {
+            names.add(mVertices.get(v));
+        }
+
+        return names;
+    }
+
+    /**
+     * Find a cycle among the vertices Kahn's algorithm left out.
+     *
+     * The sort stops when every remaining vertex still has an incoming edge
+     * from another remaining vertex. Following those edges backwards from
+     * any remaining vertex must then repeat a vertex, and the vertices
+     * between the two visits form a cycle. Only the failure path pays for
+     * this, and it needs one pass over the edges rather than a second
+     * search. The cycle is whichever one the walk runs into, not necessarily
+     * the shortest.
+     *
+     * @param waiting In-degrees left when the sort stopped, positive for
+     *        exactly the vertices it left out
+     * @return Names of the cycle's vertices in edge order
+     */
+    List<String> findCycle(final int[] waiting) {
+        int n = size();
+        int[] predecessor = new int[n];
+        int start = -1;
+
+        for (int v = 0; v < n; v += 1) {
+            if (waiting[v] > 0) {
+                start = v;
+
+                for (int u : mSuccessors[v]) {
+                    if (waiting[u] > 0) {
+                        predecessor[u] = v;
+                    }
+                }
+            }
+        }
+
+        int[] visited = new int[n];
+        int[] walk = new int[n];
+        int length = 0;
+        int v = start;
+
+        Arrays.fill(visited, -1);
+
+        while (visited[v] < 0) {
+            visited[v] = length;
+            walk[length] = v;
+            length += 1;
+            v = predecessor[v];
+        }
+
+        List<String> cycle = new ArrayList<String>(length - visited[v]);
+
+        for (int k = length - 1; k >= visited[v]; k -= 1) {
+            cycle.add(mVertices.get(walk[k]));
+        }
+
+        return cycle;
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Binary min-heap of int values ordered by long keys, over primitive arrays
+ * so large graphs don't box every entry.
+ *
+ * The capacity is fixed when the heap is created. Callers size it from a
+ * bound on the entries they can have at once, such as one per vertex for a
+ * ready queue or one per edge plus the source for Dijkstra with lazy
+ * deletion.
+ */
+public final class IntHeap {
+    /** Keys, heap ordered. */
+    private final long[] mKeys;
+
+    /** Values, in the same positions as their keys. */
+    private final int[] mValues;
+
+    /** Number of entries. */
+    private int mSize;
+
+    /**
+     * @param capacity Largest number of entries
+     */
+    public IntHeap(final int capacity) {
+        mKeys = new long[Math.max(1, capacity)];
+        mValues = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * @return True if there are no entries
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * @return Smallest key
+     */
+    public long peekKey() {
+        return mKeys[0];
+    }
+
+    /**
+     * Add an entry.
+     * @param key Key
+     * @param value Value
+     * @throws IllegalStateException If the heap is at its capacity
+     */
+    public void push(final long key, final int value) {
+        if (mSize == mValues.length) {
+            throw new IllegalStateException("Heap is full");
+        }
+
+        int i = mSize;
+        mSize += 1;
+
+        while (i > 0 && mKeys[(i - 1) / 2] > key) {
+            mKeys[i] = mKeys[(i - 1) / 2];
+            mValues[i] = mValues[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+
+        mKeys[i] = key;
+        mValues[i] = value;
+    }
+
+    /**
+     * Remove the entry with the smallest key.
+     * @return Its value
+     */
+    public int pop() {
+        int top = mValues[0];
+
+        mSize -= 1;
+
+        long key = mKeys[mSize];
+        int value = mValues[mSize];
+        int i = 0;
+
+        while (2 * i + 1 < mSize) {
+            int child = 2 * i + 1;
+
+            if (child + 1 < mSize && mKeys[child + 1] < mKeys[child]) {
+                child += 1;
+            }
+
+            if (mKeys[child] >= key) {
+                break;
+            }
+
+            mKeys[i] = mKeys[child];
+            mValues[i] = mValues[child];
+            i = child;
+        }
+
+        mKeys[i] = key;
+        mValues[i] = value;
+
+        return top;
+    }
+}
@@ -0,0 +1,263 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Max flows of one graph and one set of capacities between many (source,
+ * sink) pairs, for callers that would otherwise call maxFlow once per pair
+ * and rebuild the residual graph every time.
+ *
+ * The EdgeIndex and the ResidualNetwork of MaxFlowEngine are built once,
+ * when the batch is made, and the algorithm is picked once for the
+ * network. Every query then costs one reset(), a single array copy, plus
+ * the flow itself. With more than one thread the pairs are handed out to a
+ * pool one at a time, and every thread works on its own copy() of the
+ * network, which shares the arcs and owns only the capacities. Results come
+ * back in the order of the pairs whatever order the threads ran them in.
+ *
+ * Pairs naming a vertex the graph doesn't have get no flow, as maxFlow
+ * gives them. A batch never changes after it is made, so it can be run
+ * again with other pairs, from several threads at once.
+ */
+public final class MaxFlowBatch {
+    /** Edge ids of the graph. */
+    private final EdgeIndex mEdges;
+
+    /** Network every query starts from, never run itself. */
+    private final ResidualNetwork mNetwork;
+
+    /** Algorithm used for every query, never AUTO. */
+    private final MaxFlowEngine.Engine mEngine;
+
+    /**
+     * Prepare max flow queries on a graph, picking the algorithm by its
+     * density.
+     * @param g Graph
+     * @param c Capacity of every edge, missing edges have capacity 0
+     */
+    public MaxFlowBatch(final IGraph g, final Map<Pair<String, String>, Integer> c) {
+        this(g, c, MaxFlowEngine.Engine.AUTO);
+    }
+
+    /**
+     * Prepare max flow queries on a graph.
+     * @param g Graph
+     * @param c Capacity of every edge, missing edges have capacity 0
+     * @param engine Algorithm to use
+     */
+    public MaxFlowBatch(final IGraph g, final Map<Pair<String, String>, Integer> c,
+            final MaxFlowEngine.Engine engine) {
+        this(new EdgeIndex(g), c, engine);
+    }
+
+    /**
+     * @param edges Edge ids of the graph
+     * @param c Capacity of every edge
+     * @param engine Algorithm to use
+     */
+    private MaxFlowBatch(final EdgeIndex edges, final Map<Pair<String, String>, Integer> c,
+            final MaxFlowEngine.Engine engine) {
+        this(edges, edges.toArray(c), engine);
+    }
+
+    /**
+     * Prepare max flow queries over edge ids.
+     * @param edges Edge ids of the graph
+     * @param capacities Capacity of every edge by id, read once
+     * @param engine Algorithm to use
+     */
+    public MaxFlowBatch(final EdgeIndex edges, final int[] capacities, final MaxFlowEngine.Engine engine) {
+        mEdges = edges;
+        mNetwork = new ResidualNetwork(edges.getGraph().size(), edges.getTails(), edges.getHeads(),
+                capacities);
+        mEngine = engine == MaxFlowEngine.Engine.AUTO
+                ? MaxFlowEngine.choose(mNetwork.size(), mNetwork.getArcCount()) : engine;
+    }
+
+    /**
+     * @return Edge ids the int array results are indexed by
+     */
+    public EdgeIndex getEdges() {
+        return mEdges;
+    }
+
+    /**
+     * Max flow of every pair, on the calling thread.
+     * @param pairs Source and sink of every query
+     * @return Flow on every edge that carries any, one map per pair
+     */
+    public List<Map<Pair<String, String>, Integer>> maxFlows(final List<Pair<String, String>> pairs) {
+        return maxFlows(pairs, 1);
+    }
+
+    /**
+     * Max flow of every pair.
+     * @param pairs Source and sink of every query
+     * @param threads Number of threads to use
+     * @return Flow on every edge that carries any, one map per pair
+     */
+    public List<Map<Pair<String, String>, Integer>> maxFlows(final List<Pair<String, String>> pairs,
+            final int threads) {
+        int[][] flows = new int[pairs.size()][];
+        List<Map<Pair<String, String>, Integer>> maps = new ArrayList<Map<Pair<String, String>, Integer>>();
+
+        run(ids(pairs, true), ids(pairs, false), threads, new int[pairs.size()], flows);
+
+        for (int[] flow : flows) {
+            maps.add(flow == null ? new HashMap<Pair<String, String>, Integer>() : mEdges.toMap(flow));
+        }
+
+        return maps;
+    }
+
+    /**
+     * Max flow value of every pair, on the calling thread, without reading
+     * the flows back.
+     * @param pairs Source and sink of every query
+     * @return Value of the max flow of every pair
+     */
+    public int[] maxFlowValues(final List<Pair<String, String>> pairs) {
+        return maxFlowValues(pairs, 1);
+    }
+
+    /**
+     * Max flow value of every pair, without reading the flows back.
+     * @param pairs Source and sink of every query
+     * @param threads Number of threads to use
+     * @return Value of the max flow of every pair
+     */
+    public int[] maxFlowValues(final List<Pair<String, String>> pairs, final int threads) {
+        return maxFlowValues(ids(pairs, true), ids(pairs, false), threads);
+    }
+
+    /**
+     * Max flow value of every pair of vertex ids.
+     * @param sources Source id of every query, -1 for none
+     * @param sinks Sink id of every query, -1 for none
+     * @param threads Number of threads to use
+     * @return Value of the max flow of every pair
+     */
+    public int[] maxFlowValues(final int[] sources, final int[] sinks, final int threads) {
+        int[] values = new int[sources.length];
+
+        run(sources, sinks, threads, values, null);
+
+        return values;
+    }
+
+    /**
+     * Vertex ids of one end of every pair.
+     * @param pairs Source and sink of every query
+     * @param first True for the sources, false for the sinks
+     * @return Id of every end, -1 if the graph doesn't have it
+     */
+    private int[] ids(final List<Pair<String, String>> pairs, final boolean first) {
+        IndexedGraph graph = mEdges.getGraph();
+        int[] ids = new int[pairs.size()];
+
+        for (int i = 0; i < ids.length; i += 1) {
+            String v = first ? pairs.get(i).first : pairs.get(i).second;
+
+            ids[i] = graph.contains(v) ? graph.getIndex(v) : -1;
+        }
+
+        return ids;
+    }
+
+    /**
+     * Run every query, on a pool if there is more than one thread and more
+     * than one query.
+     * @param sources Source id of every query, -1 for none
+     * @param sinks Sink id of every query, -1 for none
+     * @param threads Number of threads to use
+     * @param values Filled with the value of every query
+     * @param flows Filled with the flow of every query that has both ends,
+     *            or null to skip reading the flows
+     */
+    private void run(final int[] sources, final int[] sinks, final int threads, final int[] values,
+            final int[][] flows) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread, got " + threads);
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(threads, sources.length);
+
+        if (workers <= 1) {
+            work(mNetwork.copy(), next, sources, sinks, values, flows);
+            return;
+        }
+
+        final CountDownLatch done = new CountDownLatch(workers);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+
+        try {
+            for (int i = 0; i < workers; i += 1) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            work(mNetwork.copy(), next, sources, sinks, values, flows);
+                        } catch (Throwable e) {
+                            error.compareAndSet(null, e);
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                });
+            }
+
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while finding max flows", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (error.get() != null) {
+            throw new IllegalStateException("Finding max flows failed", error.get());
+        }
+    }
+
+    /**
+     * Take queries until there are none left, resetting the network before
+     * each.
+     * @param network This thread's network
+     * @param next Next query to take
+     * @param sources Source id of every query, -1 for none
+     * @param sinks Sink id of every query, -1 for none
+     * @param values Filled with the value of every query taken
+     * @param flows Filled with the flow of every query taken, or null
+     */
+    private void work(final ResidualNetwork network, final AtomicInteger next, final int[] sources,
+            final int[] sinks, final int[] values, final int[][] flows) {
+        for (int i = next.getAndIncrement(); i < sources.length; i = next.getAndIncrement()) {
+            if (sources[i] < 0 || sinks[i] < 0) {
+                continue;
+            }
+
+            network.reset();
+            values[i] = MaxFlowEngine.run(network, sources[i], sinks[i], mEngine);
+
+            if (flows != null) {
+                int[] flow = new int[mEdges.size()];
+
+                for (int e = 0; e < flow.length; e += 1) {
+                    flow[e] = network.getFlow(e);
+                }
+
+                flows[i] = flow;
+            }
+        }
+    }
+}
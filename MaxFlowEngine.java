@@ -0,0 +1,326 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+import edu.iastate.cs311.f13.hw6.IMaxFlowAlgorithms;
+
+/**
+ * IMaxFlowAlgorithms whose maxFlow runs on a ResidualNetwork of int arrays
+ * instead of maps keyed by Pairs, with a choice of algorithm.
+ *
+ * DINIC is Dinic's algorithm with level graphs and current-arc pointers,
+ * quick on sparse networks and on short augmenting paths. PUSH_RELABEL is
+ * highest-label push-relabel with the gap and global relabel heuristics,
+ * which doesn't look for paths at all and does better once the network is
+ * dense. AUTO looks at the shape of each graph and picks one of them. The
+ * engine is fixed when the object is made, and can be chosen again for any
+ * single call.
+ *
+ * Besides the Map signatures there are overloads that take and return
+ * int arrays indexed by the edge ids of an EdgeIndex. The Map signatures
+ * are adapters over them: the capacities are read into an array once, and
+ * the flow map is filled once at the end with the edges that carry flow.
+ *
+ * maxFlowWithVertexCapacities and maxVertexDisjointPaths run on an
+ * implicit split of the graph: vertex i is node 2i going in and node
+ * 2i + 1 going out, joined by an arc with the vertex's capacity, with no
+ * copied graph and no made-up vertex names. Their flows are read straight
+ * back onto the original edges. Disjoint paths use unit capacity Dinic.
+ */
+public final class MaxFlowEngine implements IMaxFlowAlgorithms {
+    /** Algorithm used for a max flow. */
+    public enum Engine {
+        /** Dinic's algorithm. */
+        DINIC,
+
+        /** Highest-label push-relabel. */
+        PUSH_RELABEL,
+
+        /** Push-relabel on dense graphs, Dinic otherwise. */
+        AUTO
+    }
+
+    /** Capacity of edges and vertices with no limit. */
+    public static final int UNBOUNDED = Integer.MAX_VALUE / 2;
+
+    /** Average out-degree from which AUTO picks push-relabel. */
+    static final int DENSE_DEGREE = 32;
+
+    /** Algorithm used when a call doesn't pick one. */
+    private final Engine mEngine;
+
+    /**
+     * Create an engine that picks the algorithm for every graph.
+     */
+    public MaxFlowEngine() {
+        this(Engine.AUTO);
+    }
+
+    /**
+     * Create an engine with a default algorithm.
+     * @param engine Algorithm used when a call doesn't pick one
+     */
+    public MaxFlowEngine(final Engine engine) {
+        mEngine = engine;
+    }
+
+    /**
+     * The algorithm AUTO picks for a network.
+     * @param nodes Number of nodes
+     * @param arcs Number of arcs
+     * @return PUSH_RELABEL if the network is dense, DINIC otherwise
+     */
+    public static Engine choose(final int nodes, final int arcs) {
+        return arcs >= (long) DENSE_DEGREE * nodes ? Engine.PUSH_RELABEL : Engine.DINIC;
+    }
+
+    /**
+     * Add as much flow as the network can take from source to sink.
+     * @param network Network to add to
+     * @param source Source node
+     * @param sink Sink node
+     * @param engine Algorithm to use
+     * @return Flow added
+     */
+    static int run(final ResidualNetwork network, final int source, final int sink, final Engine engine) {
+        Engine e = engine == Engine.AUTO ? choose(network.size(), network.getArcCount()) : engine;
+
+        if (e == Engine.PUSH_RELABEL) {
+            return network.pushRelabel(source, sink);
+        }
+
+        return network.dinic(source, sink, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Map<Pair<String, String>, Integer> maxFlow(final IGraph g, final String s, final String t,
+            final Map<Pair<String, String>, Integer> c) {
+        return maxFlow(g, s, t, c, mEngine);
+    }
+
+    /**
+     * maxFlow with the algorithm picked for this call.
+     * @param g Graph
+     * @param s Source
+     * @param t Sink
+     * @param c Capacity of every edge, missing edges have capacity 0
+     * @param engine Algorithm to use
+     * @return Flow on every edge that carries any
+     */
+    public Map<Pair<String, String>, Integer> maxFlow(final IGraph g, final String s, final String t,
+            final Map<Pair<String, String>, Integer> c, final Engine engine) {
+        EdgeIndex edges = new EdgeIndex(g);
+        IndexedGraph graph = edges.getGraph();
+
+        if (!graph.contains(s) || !graph.contains(t)) {
+            return new HashMap<Pair<String, String>, Integer>();
+        }
+
+        return edges.toMap(maxFlow(edges, graph.getIndex(s), graph.getIndex(t), edges.toArray(c), engine));
+    }
+
+    /**
+     * maxFlow over edge ids, with no maps in or out.
+     * @param edges Edge ids of the graph
+     * @param s Source vertex id
+     * @param t Sink vertex id
+     * @param capacities Capacity of every edge by id
+     * @return Flow on every edge by id
+     */
+    public int[] maxFlow(final EdgeIndex edges, final int s, final int t, final int[] capacities) {
+        return maxFlow(edges, s, t, capacities, mEngine);
+    }
+
+    /**
+     * maxFlow over edge ids with the algorithm picked for this call.
+     * @param edges Edge ids of the graph
+     * @param s Source vertex id
+     * @param t Sink vertex id
+     * @param capacities Capacity of every edge by id
+     * @param engine Algorithm to use
+     * @return Flow on every edge by id
+     */
+    public int[] maxFlow(final EdgeIndex edges, final int s, final int t, final int[] capacities,
+            final Engine engine) {
+        ResidualNetwork network = new ResidualNetwork(edges.getGraph().size(), edges.getTails(),
+                edges.getHeads(), capacities);
+        int[] flow = new int[edges.size()];
+
+        run(network, s, t, engine);
+
+        for (int e = 0; e < flow.length; e += 1) {
+            flow[e] = network.getFlow(e);
+        }
+
+        return flow;
+    }
+
+    /**
+     * Max flow through vertices of limited capacity, on the split network
+     * from the source's in-half to the sink's out-half, so the capacities
+     * of the source and the sink count too. Edges are unbounded.
+     *
+     * @param g Graph
+     * @param s Source
+     * @param t Sink
+     * @param c Capacity of every vertex, missing vertices are unbounded
+     * @return Flow on every original edge that carries any
+     */
+    @Override
+    public Map<Pair<String, String>, Integer> maxFlowWithVertexCapacities(final IGraph g, final String s,
+            final String t, final Map<String, Integer> c) {
+        EdgeIndex edges = new EdgeIndex(g);
+        IndexedGraph graph = edges.getGraph();
+
+        if (!graph.contains(s) || !graph.contains(t) || s.equals(t)) {
+            return new HashMap<Pair<String, String>, Integer>();
+        }
+
+        return edges.toMap(maxFlowWithVertexCapacities(edges, graph.getIndex(s), graph.getIndex(t),
+                edges.toVertexArray(c, UNBOUNDED)));
+    }
+
+    /**
+     * maxFlowWithVertexCapacities over ids, with no maps in or out.
+     * @param edges Edge ids of the graph
+     * @param s Source vertex id
+     * @param t Sink vertex id
+     * @param capacities Capacity of every vertex by id, UNBOUNDED for none
+     * @return Flow on every edge by id
+     */
+    public int[] maxFlowWithVertexCapacities(final EdgeIndex edges, final int s, final int t,
+            final int[] capacities) {
+        return maxFlowWithVertexCapacities(edges, s, t, capacities, mEngine);
+    }
+
+    /**
+     * maxFlowWithVertexCapacities over ids with the algorithm picked for
+     * this call.
+     * @param edges Edge ids of the graph
+     * @param s Source vertex id
+     * @param t Sink vertex id
+     * @param capacities Capacity of every vertex by id, UNBOUNDED for none
+     * @param engine Algorithm to use
+     * @return Flow on every edge by id
+     */
+    public int[] maxFlowWithVertexCapacities(final EdgeIndex edges, final int s, final int t,
+            final int[] capacities, final Engine engine) {
+        int[] unbounded = new int[edges.size()];
+
+        Arrays.fill(unbounded, UNBOUNDED);
+
+        ResidualNetwork network = split(edges, unbounded, capacities);
+        int[] flow = new int[edges.size()];
+
+        if (s != t) {
+            run(network, 2 * s, 2 * t + 1, engine);
+        }
+
+        for (int e = 0; e < flow.length; e += 1) {
+            flow[e] = network.getFlow(e);
+        }
+
+        return flow;
+    }
+
+    /**
+     * Vertex disjoint paths by unit capacity Dinic on the split network, the
+     * source's out-half to the sink's in-half. Every arc and every vertex
+     * holds one unit, so Dinic takes O(E sqrt(V)). Each vertex then carries
+     * at most one unit, so one pass over the edges gives every vertex the
+     * vertex its flow goes to next, and the paths are read off by following
+     * that from each edge out of the source that carries flow.
+     *
+     * @param g Graph
+     * @param s Source
+     * @param t Sink
+     * @return Largest set of paths from s to t that share no inner vertex
+     */
+    @Override
+    public Collection<List<String>> maxVertexDisjointPaths(final IGraph g, final String s, final String t) {
+        EdgeIndex edges = new EdgeIndex(g);
+        IndexedGraph graph = edges.getGraph();
+        List<List<String>> paths = new ArrayList<List<String>>();
+
+        if (!graph.contains(s) || !graph.contains(t) || s.equals(t)) {
+            return paths;
+        }
+
+        int[] units = new int[Math.max(edges.size(), graph.size())];
+
+        Arrays.fill(units, 1);
+
+        int source = graph.getIndex(s);
+        int sink = graph.getIndex(t);
+        ResidualNetwork network = split(edges, units, units);
+
+        network.dinic(2 * source + 1, 2 * sink, Integer.MAX_VALUE);
+
+        int[] next = new int[graph.size()];
+        List<Integer> starts = new ArrayList<Integer>();
+
+        for (int e = 0; e < edges.size(); e += 1) {
+            if (network.getFlow(e) > 0) {
+                if (edges.getTail(e) == source) {
+                    starts.add(edges.getHead(e));
+                } else {
+                    next[edges.getTail(e)] = edges.getHead(e);
+                }
+            }
+        }
+
+        for (int v : starts) {
+            List<String> path = new ArrayList<String>();
+
+            path.add(s);
+
+            for (int u = v; u != sink; u = next[u]) {
+                path.add(graph.getVertex(u));
+            }
+
+            path.add(t);
+            paths.add(path);
+        }
+
+        return paths;
+    }
+
+    /**
+     * The split network of a graph: vertex v becomes node 2v, its in-half,
+     * and node 2v + 1, its out-half, joined by an arc with the vertex's
+     * capacity. Edge v -> u becomes the arc from 2v + 1 to 2u. Arc e is edge
+     * e of the index and arc edges.size() + v is vertex v's inner arc, so
+     * flows read straight back onto the original edges.
+     *
+     * @param edges Edge ids of the graph
+     * @param edgeCapacities Capacity of every edge by id
+     * @param vertexCapacities Capacity of every vertex by id
+     * @return The network, with no flow
+     */
+    static ResidualNetwork split(final EdgeIndex edges, final int[] edgeCapacities, final int[] vertexCapacities) {
+        int n = edges.getGraph().size();
+        int m = edges.size();
+        int[] tails = new int[m + n];
+        int[] heads = new int[m + n];
+        int[] capacities = new int[m + n];
+
+        for (int e = 0; e < m; e += 1) {
+            tails[e] = 2 * edges.getTail(e) + 1;
+            heads[e] = 2 * edges.getHead(e);
+            capacities[e] = edgeCapacities[e];
+        }
+
+        for (int v = 0; v < n; v += 1) {
+            tails[m + v] = 2 * v;
+            heads[m + v] = 2 * v + 1;
+            capacities[m + v] = vertexCapacities[v];
+        }
+
+        return new ResidualNetwork(2 * n, tails, heads, capacities);
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * A max flow from one source to one sink that is kept up to date while
+ * edge capacities change, instead of being found again from nothing.
+ *
+ * The session keeps the ResidualNetwork of MaxFlowEngine with its flow.
+ * When a capacity goes up the flow still fits, so Dinic only adds to it
+ * from the source. When a capacity drops below the flow on the edge, the
+ * flow taken off leaves the tail with too much coming in and the head
+ * with too little. Dinic first sends as much of it as it can from the
+ * tail to the head around the edge, which keeps the value. Whatever is
+ * left can't get around, so it goes back from the tail to the source and
+ * from the sink to the head, unless those ends are the source or the sink
+ * themselves, and Dinic then looks for new paths from the source. The
+ * value is read off the source's arcs. Only the flow that no longer fits
+ * is moved, though every Dinic phase still costs a breadth first search.
+ *
+ * The graph is read once, when the session is made; later changes to it
+ * aren't seen. A session isn't safe to use from several threads.
+ */
+public final class MaxFlowSession {
+    /** Edge ids of the graph. */
+    private final EdgeIndex mEdges;
+
+    /** The network with the current flow. */
+    private final ResidualNetwork mNetwork;
+
+    /** Source id, -1 if the graph doesn't have it. */
+    private final int mSource;
+
+    /** Sink id, -1 if the graph doesn't have it. */
+    private final int mSink;
+
+    /** Value of the current flow. */
+    private int mValue;
+
+    /**
+     * Find the max flow to start from, picking the algorithm by density.
+     * @param g Graph
+     * @param s Source
+     * @param t Sink
+     * @param c Capacity of every edge, missing edges have capacity 0
+     */
+    public MaxFlowSession(final IGraph g, final String s, final String t,
+            final Map<Pair<String, String>, Integer> c) {
+        this(new EdgeIndex(g), s, t, c);
+    }
+
+    /**
+     * @param edges Edge ids of the graph
+     * @param s Source
+     * @param t Sink
+     * @param c Capacity of every edge
+     */
+    private MaxFlowSession(final EdgeIndex edges, final String s, final String t,
+            final Map<Pair<String, String>, Integer> c) {
+        this(edges, id(edges, s), id(edges, t), edges.toArray(c));
+    }
+
+    /**
+     * Find the max flow to start from, over edge ids.
+     * @param edges Edge ids of the graph
+     * @param s Source vertex id, -1 for none
+     * @param t Sink vertex id, -1 for none
+     * @param capacities Capacity of every edge by id, read once
+     */
+    public MaxFlowSession(final EdgeIndex edges, final int s, final int t, final int[] capacities) {
+        mEdges = edges;
+        mNetwork = new ResidualNetwork(edges.getGraph().size(), edges.getTails(), edges.getHeads(),
+                capacities);
+        mSource = s;
+        mSink = t;
+
+        if (s >= 0 && t >= 0) {
+            mValue = MaxFlowEngine.run(mNetwork, s, t, MaxFlowEngine.Engine.AUTO);
+        }
+    }
+
+    /**
+     * @param edges Edge ids of the graph
+     * @param v Vertex
+     * @return Its id, or -1 if the graph doesn't have it
+     */
+    private static int id(final EdgeIndex edges, final String v) {
+        return edges.getGraph().contains(v) ? edges.getGraph().getIndex(v) : -1;
+    }
+
+    /**
+     * @return Edge ids of the graph
+     */
+    public EdgeIndex getEdges() {
+        return mEdges;
+    }
+
+    /**
+     * @return Value of the max flow for the current capacities
+     */
+    public int getValue() {
+        return mValue;
+    }
+
+    /**
+     * @param e Edge id
+     * @return Flow on the edge
+     */
+    public int getFlow(final int e) {
+        return mNetwork.getFlow(e);
+    }
+
+    /**
+     * @return Flow on every edge that carries any, as maxFlow returns it
+     */
+    public Map<Pair<String, String>, Integer> getFlow() {
+        if (mSource < 0 || mSink < 0) {
+            return new HashMap<Pair<String, String>, Integer>();
+        }
+
+        int[] flow = new int[mEdges.size()];
+
+        for (int e = 0; e < flow.length; e += 1) {
+            flow[e] = mNetwork.getFlow(e);
+        }
+
+        return mEdges.toMap(flow);
+    }
+
+    /**
+     * Change the capacity of an edge and bring the max flow up to date.
+     * @param v Tail
+     * @param u Head
+     * @param capacity New capacity
+     * @return Value of the new max flow
+     */
+    public int setCapacity(final String v, final String u, final int capacity) {
+        int e = mEdges.getEdge(v, u);
+
+        if (e < 0) {
+            throw new IllegalArgumentException("No edge from " + v + " to " + u);
+        }
+
+        return setCapacity(e, capacity);
+    }
+
+    /**
+     * Change the capacity of an edge by id and bring the max flow up to
+     * date.
+     * @param e Edge id
+     * @param capacity New capacity
+     * @return Value of the new max flow
+     */
+    public int setCapacity(final int e, final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity can't be negative, got " + capacity);
+        }
+
+        int overflow = mNetwork.setCapacity(e, capacity);
+
+        if (mSource < 0 || mSink < 0) {
+            return mValue;
+        }
+
+        if (overflow > 0) {
+            int tail = mEdges.getTail(e);
+            int head = mEdges.getHead(e);
+            int left = overflow - mNetwork.dinic(tail, head, overflow);
+
+            if (left > 0 && tail != mSource && tail != mSink) {
+                mNetwork.dinic(tail, mSource, left);
+            }
+
+            if (left > 0 && head != mSource && head != mSink) {
+                mNetwork.dinic(mSink, head, left);
+            }
+        }
+
+        mNetwork.dinic(mSource, mSink, Integer.MAX_VALUE);
+        mValue = (int) mNetwork.getOutflow(mSource);
+
+        return mValue;
+    }
+}
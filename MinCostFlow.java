@@ -0,0 +1,283 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Minimum cost maximum flow, using the same capacity maps as
+ * IMaxFlowAlgorithms.maxFlow plus a second map of per-unit edge costs.
+ *
+ * Uses successive shortest paths: Dijkstra with Johnson potentials finds the
+ * cheapest augmenting path each round. The residual graph is kept in int
+ * arrays and Dijkstra uses a binary heap over primitive arrays, so nothing is
+ * allocated per edge while augmenting. Negative costs are allowed as long as
+ * there is no negative cost cycle; the first potentials then come from
+ * Bellman-Ford.
+ *
+ * Besides being useful on its own, the flow value is an independent check of
+ * maxFlow.
+ */
+public final class MinCostFlow {
+    /** Distance of unreachable vertices. */
+    private static final long INFINITY = Long.MAX_VALUE / 4;
+
+    /** The minimum cost maximum flow. */
+    private final Map<Pair<String, String>, Integer> mFlow;
+
+    /** Value of the flow. */
+    private final int mValue;
+
+    /** Total cost of the flow. */
+    private final long mCost;
+
+    /** First residual edge of every vertex, -1 if none. */
+    private final int[] mHead;
+
+    /** Next residual edge of the same vertex, -1 at the end. */
+    private final int[] mNext;
+
+    /** Head of every residual edge. Edge k ^ 1 is the reverse of edge k. */
+    private final int[] mTo;
+
+    /** Remaining capacity of every residual edge. */
+    private final int[] mCapacity;
+
+    /** Cost of every residual edge, reverse edges have the negated cost. */
+    private final int[] mCostOf;
+
+    /**
+     * Vertices by reduced distance, with lazy deletion. Each vertex is
+     * scanned once per Dijkstra and pushes at most one entry per residual
+     * edge it relaxes, so one entry per residual edge plus the source is
+     * enough.
+     */
+    private final IntHeap mHeap;
+
+    /**
+     * Compute the minimum cost maximum flow.
+     * @param g Graph
+     * @param s Source
+     * @param t Sink
+     * @param capacities Capacity of every edge, missing edges have capacity 0
+     * @param costs Cost per unit of flow of every edge, missing edges cost 0
+     */
+    public MinCostFlow(final IGraph g, final String s, final String t,
+            final Map<Pair<String, String>, Integer> capacities,
+            final Map<Pair<String, String>, Integer> costs) {
+        List<String> vertices = new ArrayList<String>(g.getVertices());
+        HashMap<String, Integer> index = new HashMap<String, Integer>();
+        List<Pair<String, String>> edges = new ArrayList<Pair<String, String>>();
+
+        for (String v : vertices) {
+            index.put(v, index.size());
+            edges.addAll(g.getOutgoingEdges(v));
+        }
+
+        int n = vertices.size();
+        int m = edges.size();
+        boolean negative = false;
+
+        mHead = new int[n];
+        mNext = new int[2 * m];
+        mTo = new int[2 * m];
+        mCapacity = new int[2 * m];
+        mCostOf = new int[2 * m];
+        mHeap = new IntHeap(2 * m + 1);
+
+        Arrays.fill(mHead, -1);
+
+        for (int k = 0; k < m; k += 1) {
+            Pair<String, String> e = edges.get(k);
+            int cost = value(costs, e);
+
+            link(2 * k, index.get(e.first), index.get(e.second), value(capacities, e), cost);
+            link(2 * k + 1, index.get(e.second), index.get(e.first), 0, -cost);
+
+            negative |= cost < 0;
+        }
+
+        int value = 0;
+        long total = 0;
+
+        Integer source = index.get(s);
+        Integer sink = index.get(t);
+
+        if (source != null && sink != null && !source.equals(sink)) {
+            long[] potential = negative ? bellmanFord(source) : new long[n];
+            long[] dist = new long[n];
+            int[] via = new int[n];
+
+            while (true) {
+                dijkstra(source, potential, dist, via);
+
+                if (dist[sink] >= INFINITY) {
+                    break;
+                }
+
+                for (int v = 0; v < n; v += 1) {
+                    if (dist[v] < INFINITY) {
+                        potential[v] += dist[v];
+                    }
+                }
+
+                int push = Integer.MAX_VALUE;
+
+                for (int v = sink; v != source; v = mTo[via[v] ^ 1]) {
+                    push = Math.min(push, mCapacity[via[v]]);
+                }
+
+                for (int v = sink; v != source; v = mTo[via[v] ^ 1]) {
+                    mCapacity[via[v]] -= push;
+                    mCapacity[via[v] ^ 1] += push;
+                    total += (long) push * mCostOf[via[v]];
+                }
+
+                value += push;
+            }
+        }
+
+        mFlow = new HashMap<Pair<String, String>, Integer>();
+
+        for (int k = 0; k < m; k += 1) {
+            if (mCapacity[2 * k + 1] > 0) {
+                mFlow.put(edges.get(k), mCapacity[2 * k + 1]);
+            }
+        }
+
+        mValue = value;
+        mCost = total;
+    }
+
+    /**
+     * Look up an edge in a map, treating missing edges as 0.
+     * @param m Map to read
+     * @param e Edge
+     * @return Value of the edge
+     */
+    private static int value(final Map<Pair<String, String>, Integer> m, final Pair<String, String> e) {
+        Integer x = m.get(e);
+        return x == null ? 0 : x;
+    }
+
+    /**
+     * Set up one residual edge.
+     * @param k Index of the edge
+     * @param from Tail
+     * @param to Head
+     * @param capacity Capacity
+     * @param cost Cost per unit of flow
+     */
+    private void link(final int k, final int from, final int to, final int capacity, final int cost) {
+        mTo[k] = to;
+        mCapacity[k] = capacity;
+        mCostOf[k] = cost;
+        mNext[k] = mHead[from];
+        mHead[from] = k;
+    }
+
+    /**
+     * Shortest path costs from the source over edges with capacity, used as
+     * the first potentials when some costs are negative.
+     *
+     * @param source Source index
+     * @return Distance to every vertex, 0 for unreachable ones
+     */
+    private long[] bellmanFord(final int source) {
+        int n = mHead.length;
+        long[] dist = new long[n];
+
+        Arrays.fill(dist, INFINITY);
+        dist[source] = 0;
+
+        for (int round = 0; round < n; round += 1) {
+            boolean changed = false;
+
+            for (int v = 0; v < n; v += 1) {
+                if (dist[v] >= INFINITY) {
+                    continue;
+                }
+
+                for (int k = mHead[v]; k != -1; k = mNext[k]) {
+                    if (mCapacity[k] > 0 && dist[v] + mCostOf[k] < dist[mTo[k]]) {
+                        dist[mTo[k]] = dist[v] + mCostOf[k];
+                        changed = true;
+                    }
+                }
+            }
+
+            if (!changed) {
+                break;
+            }
+        }
+
+        for (int v = 0; v < n; v += 1) {
+            if (dist[v] >= INFINITY) {
+                dist[v] = 0;
+            }
+        }
+
+        return dist;
+    }
+
+    /**
+     * Reduced cost shortest paths from the source.
+     * @param source Source index
+     * @param potential Vertex potentials, reduced costs are non-negative
+     * @param dist Filled with the reduced distance to every vertex
+     * @param via Filled with the residual edge used to reach every vertex
+     */
+    private void dijkstra(final int source, final long[] potential, final long[] dist, final int[] via) {
+        Arrays.fill(dist, INFINITY);
+        dist[source] = 0;
+        mHeap.clear();
+        mHeap.push(0, source);
+
+        while (!mHeap.isEmpty()) {
+            long d = mHeap.peekKey();
+            int v = mHeap.pop();
+
+            if (d > dist[v]) {
+                continue;
+            }
+
+            for (int k = mHead[v]; k != -1; k = mNext[k]) {
+                int u = mTo[k];
+
+                if (mCapacity[k] > 0) {
+                    long next = d + mCostOf[k] + potential[v] - potential[u];
+
+                    if (next < dist[u]) {
+                        dist[u] = next;
+                        via[u] = k;
+                        mHeap.push(next, u);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Flow on every edge that carries any
+     */
+    public Map<Pair<String, String>, Integer> getFlow() {
+        return mFlow;
+    }
+
+    /**
+     * @return Value of the flow
+     */
+    public int getValue() {
+        return mValue;
+    }
+
+    /**
+     * @return Total cost of the flow
+     */
+    public long getCost() {
+        return mCost;
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Minimum cut read off the residual graph of a maximum flow.
+ *
+ * The source side is every vertex still reachable from the source through
+ * edges with spare capacity or reverse edges carrying flow. The cut edges
+ * are the edges leaving the source side, which a maximum flow saturates, so
+ * the capacity of the cut equals the value of the flow.
+ */
+public final class MinCut {
+    /** Vertices on the source side of the cut. */
+    private final Set<String> mSourceSide;
+
+    /** Edges from the source side to the sink side. */
+    private final List<Pair<String, String>> mEdges;
+
+    /** Total capacity of the cut edges. */
+    private final int mCapacity;
+
+    /**
+     * Find the cut.
+     * @param g Graph the flow was computed on
+     * @param s Source
+     * @param c Capacity of every edge, missing edges have capacity 0
+     * @param f Maximum flow from s
+     */
+    public MinCut(final IGraph g, final String s,
+            final Map<Pair<String, String>, Integer> c, final Map<Pair<String, String>, Integer> f) {
+        HashSet<String> seen = new HashSet<String>();
+        ArrayDeque<String> queue = new ArrayDeque<String>();
+        HashMap<String, List<String>> flowInto = new HashMap<String, List<String>>();
+
+        for (Map.Entry<Pair<String, String>, Integer> e : f.entrySet()) {
+            if (e.getValue() > 0) {
+                if (!flowInto.containsKey(e.getKey().second)) {
+                    flowInto.put(e.getKey().second, new ArrayList<String>());
+                }
+
+                flowInto.get(e.getKey().second).add(e.getKey().first);
+            }
+        }
+
+        seen.add(s);
+        queue.add(s);
+
+        while (!queue.isEmpty()) {
+            String v = queue.poll();
+
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                if (value(c, e) - value(f, e) > 0 && seen.add(e.second)) {
+                    queue.add(e.second);
+                }
+            }
+
+            if (flowInto.containsKey(v)) {
+                for (String u : flowInto.get(v)) {
+                    if (seen.add(u)) {
+                        queue.add(u);
+                    }
+                }
+            }
+        }
+
+        List<Pair<String, String>> edges = new ArrayList<Pair<String, String>>();
+        int capacity = 0;
+
+        for (String v : seen) {
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                if (!seen.contains(e.second)) {
+                    edges.add(e);
+                    capacity += value(c, e);
+                }
+            }
+        }
+
+        mSourceSide = Collections.unmodifiableSet(seen);
+        mEdges = Collections.unmodifiableList(edges);
+        mCapacity = capacity;
+    }
+
+    /**
+     * Look up an edge in a map, treating missing edges as 0.
+     * @param m Map to read
+     * @param e Edge
+     * @return Value of the edge
+     */
+    private static int value(final Map<Pair<String, String>, Integer> m, final Pair<String, String> e) {
+        Integer x = m.get(e);
+        return x == null ? 0 : x;
+    }
+
+    /**
+     * @return Vertices on the source side of the cut
+     */
+    public Set<String> getSourceSide() {
+        return mSourceSide;
+    }
+
+    /**
+     * @return Edges crossing from the source side to the sink side
+     */
+    public List<Pair<String, String>> getEdges() {
+        return mEdges;
+    }
+
+    /**
+     * @return Total capacity of the cut edges
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+}
@@ -0,0 +1,240 @@
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+
+/**
+ * minScheduleLength of a DAG of tasks computed on a thread pool, next to
+ * ITopologicalSortAlgorithms.minScheduleLength, giving the same answer.
+ *
+ * The DAG is peeled into Kahn frontiers: the tasks with no predecessors,
+ * then the tasks whose last predecessor was in that frontier, and so on.
+ * Every task of a frontier already knows its start time, so a frontier is
+ * split into chunks that run at once. A chunk raises the start time of each
+ * successor to its finish time with a compare-and-set loop, counts down the
+ * successor's in-degree, and appends it to the next frontier once that
+ * reaches zero. Frontiers narrower than SEQUENTIAL_WIDTH, and whole graphs
+ * given one thread, are relaxed on the calling thread, so a narrow DAG such
+ * as a long chain never pays for handing work to the pool; the pool is only
+ * started when the first wide frontier shows up.
+ */
+public final class ParallelScheduleLength {
+    /** Frontiers with fewer tasks than this are relaxed on the calling thread. */
+    static final int SEQUENTIAL_WIDTH = 4096;
+
+    /** Fewest tasks a chunk on the pool relaxes. */
+    private static final int CHUNK_SIZE = 1024;
+
+    /** The tasks with dense ids. */
+    private final IndexedGraph mGraph;
+
+    /** Time of every task. */
+    private final int[] mTime;
+
+    /** Predecessors of every task that haven't been relaxed yet. */
+    private final AtomicIntegerArray mWaiting;
+
+    /** Largest finish time of a relaxed predecessor of every task. */
+    private final AtomicIntegerArray mStart;
+
+    /** The frontiers one after another; each task is written once, by the thread that freed it. */
+    private final int[] mOrder;
+
+    /** End of the frontier being filled in mOrder. */
+    private final AtomicInteger mTail;
+
+    /** Time when the last task finishes. */
+    private final int mMakespan;
+
+    /**
+     * Compute the schedule length on one thread per processor.
+     * @param g DAG of tasks, an edge v -> u means u can't start until v is done
+     * @param times Time of every task
+     * @throws CycleException If the graph has a cycle
+     */
+    public ParallelScheduleLength(final IGraph g, final Map<String, Integer> times) {
+        this(g, times, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Compute the schedule length.
+     * @param g DAG of tasks, an edge v -> u means u can't start until v is done
+     * @param times Time of every task
+     * @param threads Number of threads to use, 1 relaxes every frontier on
+     *        the calling thread
+     * @throws IllegalArgumentException If threads is less than 1
+     * @throws CycleException If the graph has a cycle
+     */
+    public ParallelScheduleLength(final IGraph g, final Map<String, Integer> times, final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread, got " + threads);
+        }
+
+        mGraph = IndexedGraph.of(g);
+
+        int n = mGraph.size();
+        int[] degree = mGraph.inDegrees();
+
+        mTime = mGraph.times(times);
+        mWaiting = new AtomicIntegerArray(degree);
+        mStart = new AtomicIntegerArray(n);
+        mOrder = new int[n];
+        mTail = new AtomicInteger();
+
+        for (int v = 0; v < n; v += 1) {
+            if (degree[v] == 0) {
+                mOrder[mTail.getAndIncrement()] = v;
+            }
+        }
+
+        ExecutorService executor = null;
+        int makespan = 0;
+        int head = 0;
+        int end = mTail.get();
+
+        try {
+            while (head < end) {
+                if (threads > 1 && end - head >= SEQUENTIAL_WIDTH) {
+                    if (executor == null) {
+                        executor = Executors.newFixedThreadPool(threads);
+                    }
+
+                    makespan = Math.max(makespan, relax(executor, threads, head, end));
+                } else {
+                    makespan = Math.max(makespan, relax(head, end));
+                }
+
+                head = end;
+                end = mTail.get();
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        if (head < n) {
+            int[] waiting = new int[n];
+
+            for (int v = 0; v < n; v += 1) {
+                waiting[v] = mWaiting.get(v);
+            }
+
+            throw new CycleException(mGraph.findCycle(waiting));
+        }
+
+        mMakespan = makespan;
+    }
+
+    /**
+     * @return Time when the last task finishes, the same as minScheduleLength
+     */
+    public int getMakespan() {
+        return mMakespan;
+    }
+
+    /**
+     * Relax a frontier in chunks on the pool and wait for all of them.
+     * @param executor Pool to run the chunks on
+     * @param threads Number of threads in the pool
+     * @param from Position of the frontier's first task in mOrder
+     * @param to Position after its last task
+     * @return Largest finish time in the frontier
+     */
+    private int relax(final ExecutorService executor, final int threads, final int from, final int to) {
+        int chunks = Math.min(4 * threads, (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        final CountDownLatch done = new CountDownLatch(chunks);
+        final AtomicInteger latest = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        for (int c = 0; c < chunks; c += 1) {
+            final int a = from + (int) ((long) (to - from) * c / chunks);
+            final int b = from + (int) ((long) (to - from) * (c + 1) / chunks);
+
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        raise(latest, relax(a, b));
+                    } catch (Throwable t) {
+                        error.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing the schedule length", e);
+        }
+
+        if (error.get() != null) {
+            throw new IllegalStateException("Computing the schedule length failed", error.get());
+        }
+
+        return latest.get();
+    }
+
+    /**
+     * Relax part of a frontier: pass every task's finish time on to its
+     * successors, and append the successors it frees to the next frontier.
+     * @param from Position of the first task in mOrder
+     * @param to Position after the last task
+     * @return Largest finish time among the tasks
+     */
+    private int relax(final int from, final int to) {
+        int latest = 0;
+
+        for (int k = from; k < to; k += 1) {
+            int v = mOrder[k];
+            int finish = mStart.get(v) + mTime[v];
+
+            latest = Math.max(latest, finish);
+
+            for (int u : mGraph.getSuccessors(v)) {
+                raise(mStart, u, finish);
+
+                if (mWaiting.decrementAndGet(u) == 0) {
+                    mOrder[mTail.getAndIncrement()] = u;
+                }
+            }
+        }
+
+        return latest;
+    }
+
+    /**
+     * Atomic max: raise a value to at least x.
+     * @param a Value to raise
+     * @param x Lower bound
+     */
+    private static void raise(final AtomicInteger a, final int x) {
+        int old = a.get();
+
+        while (old < x && !a.compareAndSet(old, x)) {
+            old = a.get();
+        }
+    }
+
+    /**
+     * Atomic max on an array entry: raise it to at least x.
+     * @param a Array
+     * @param i Entry to raise
+     * @param x Lower bound
+     */
+    private static void raise(final AtomicIntegerArray a, final int i, final int x) {
+        int old = a.get(i);
+
+        while (old < x && !a.compareAndSet(i, old, x)) {
+            old = a.get(i);
+        }
+    }
+}
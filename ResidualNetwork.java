@@ -0,0 +1,654 @@
+import java.util.Arrays;
+
+/**
+ * Residual graph of a flow network over int node ids, with the max flow
+ * algorithms that MaxFlowEngine picks between.
+ *
+ * The network is built from a list of arcs. Every arc gets a forward
+ * residual arc with its capacity and a reverse residual arc with none, and
+ * the residual arcs of each node sit next to each other in compressed
+ * sparse row arrays, so a search over a node's arcs reads one stretch of
+ * memory. The flow on an arc is the capacity of its reverse residual arc.
+ *
+ * dinic() finds blocking flows in level graphs with current-arc pointers
+ * and can stop at a limit. pushRelabel() is highest-label push-relabel
+ * with the gap and global relabel heuristics; heights go up to twice the
+ * number of nodes, so excess that can't reach the sink goes back to the
+ * source and the result is a flow, not a preflow. Both start from whatever
+ * flow the network already carries and return how much they added, so
+ * after setCapacity() changes an arc they pick up from the flow there is.
+ *
+ * A network isn't safe to use from several threads; copy() gives each
+ * thread its own.
+ */
+public final class ResidualNetwork {
+    /** Relabel work, in arcs scanned per node, between global relabels. */
+    private static final int GLOBAL_RELABEL_WORK = 6;
+
+    /** Number of nodes. */
+    private final int mNodes;
+
+    /** Residual arcs of node v are mFirst[v] to mFirst[v + 1] - 1. */
+    private final int[] mFirst;
+
+    /** Head of every residual arc. */
+    private final int[] mTo;
+
+    /** The residual arc going the other way. */
+    private final int[] mReverse;
+
+    /** Forward residual arc of every arc the network was built from. */
+    private final int[] mArc;
+
+    /** Capacity of every residual arc with no flow, 0 for reverse arcs. */
+    private final int[] mInitial;
+
+    /** Remaining capacity of every residual arc. */
+    private final int[] mCapacity;
+
+    /** Distance of every node from the source in the level graph, -1 if not reached. */
+    private final int[] mLevel;
+
+    /** Next residual arc of every node to try. */
+    private final int[] mCurrent;
+
+    /** Queue of the breadth first searches. */
+    private final int[] mQueue;
+
+    /** Arcs of the path being extended by a blocking flow search. */
+    private final int[] mPath;
+
+    /** Push-relabel height of every node. */
+    private final int[] mHeight;
+
+    /** Push-relabel excess of every node. */
+    private final long[] mExcess;
+
+    /** First active node of every height, -1 if none. */
+    private final int[] mActive;
+
+    /** Next active node at the same height. */
+    private final int[] mNextActive;
+
+    /** First node of every height below the node count, -1 if none. */
+    private final int[] mLayer;
+
+    /** Next node at the same height. */
+    private final int[] mNextInLayer;
+
+    /** Previous node at the same height, -1 for the first. */
+    private final int[] mPreviousInLayer;
+
+    /** Largest height with an active node, or -1. */
+    private int mHighestActive;
+
+    /** Largest height below the node count that may have a node, or -1. */
+    private int mHighestLayer;
+
+    /** Relabel work done since the last global relabel. */
+    private long mWork;
+
+    /**
+     * Build the network with no flow.
+     * @param nodes Number of nodes, ids run from 0 to nodes - 1
+     * @param tails Tail of every arc
+     * @param heads Head of every arc
+     * @param capacities Capacity of every arc
+     */
+    public ResidualNetwork(final int nodes, final int[] tails, final int[] heads, final int[] capacities) {
+        int arcs = tails.length;
+
+        mNodes = nodes;
+        mFirst = new int[nodes + 1];
+        mTo = new int[2 * arcs];
+        mReverse = new int[2 * arcs];
+        mArc = new int[arcs];
+        mInitial = new int[2 * arcs];
+
+        for (int k = 0; k < arcs; k += 1) {
+            mFirst[tails[k] + 1] += 1;
+            mFirst[heads[k] + 1] += 1;
+        }
+
+        for (int v = 0; v < nodes; v += 1) {
+            mFirst[v + 1] += mFirst[v];
+        }
+
+        int[] next = Arrays.copyOf(mFirst, nodes);
+
+        for (int k = 0; k < arcs; k += 1) {
+            int forward = next[tails[k]];
+            next[tails[k]] += 1;
+            int backward = next[heads[k]];
+            next[heads[k]] += 1;
+
+            mTo[forward] = heads[k];
+            mTo[backward] = tails[k];
+            mReverse[forward] = backward;
+            mReverse[backward] = forward;
+            mInitial[forward] = capacities[k];
+            mArc[k] = forward;
+        }
+
+        mCapacity = mInitial.clone();
+        mLevel = new int[nodes];
+        mCurrent = new int[nodes];
+        mQueue = new int[nodes];
+        mPath = new int[nodes];
+        mHeight = new int[nodes];
+        mExcess = new long[nodes];
+        mActive = new int[2 * nodes];
+        mNextActive = new int[nodes];
+        mLayer = new int[nodes];
+        mNextInLayer = new int[nodes];
+        mPreviousInLayer = new int[nodes];
+    }
+
+    /**
+     * Copy the arcs and their capacities, with no flow.
+     * @param other Network to copy
+     */
+    private ResidualNetwork(final ResidualNetwork other) {
+        mNodes = other.mNodes;
+        mFirst = other.mFirst;
+        mTo = other.mTo;
+        mReverse = other.mReverse;
+        mArc = other.mArc;
+        mInitial = other.mInitial.clone();
+        mCapacity = mInitial.clone();
+        mLevel = new int[mNodes];
+        mCurrent = new int[mNodes];
+        mQueue = new int[mNodes];
+        mPath = new int[mNodes];
+        mHeight = new int[mNodes];
+        mExcess = new long[mNodes];
+        mActive = new int[2 * mNodes];
+        mNextActive = new int[mNodes];
+        mLayer = new int[mNodes];
+        mNextInLayer = new int[mNodes];
+        mPreviousInLayer = new int[mNodes];
+    }
+
+    /**
+     * A network with the same arcs and capacities and no flow, sharing
+     * nothing that changes, for another thread.
+     * @return The copy
+     */
+    public ResidualNetwork copy() {
+        return new ResidualNetwork(this);
+    }
+
+    /**
+     * @return Number of nodes
+     */
+    public int size() {
+        return mNodes;
+    }
+
+    /**
+     * @return Number of arcs the network was built from
+     */
+    public int getArcCount() {
+        return mArc.length;
+    }
+
+    /**
+     * @param k Arc
+     * @return Flow on the arc
+     */
+    public int getFlow(final int k) {
+        return mCapacity[mReverse[mArc[k]]];
+    }
+
+    /**
+     * @param k Arc
+     * @return Capacity of the arc
+     */
+    public int getCapacity(final int k) {
+        return mInitial[mArc[k]];
+    }
+
+    /**
+     * Net flow out of a node, from its own residual arcs: each one has lost
+     * as much capacity as flow has gone out along it.
+     * @param v Node
+     * @return Flow going out less flow coming in
+     */
+    public long getOutflow(final int v) {
+        long outflow = 0;
+
+        for (int a = mFirst[v]; a < mFirst[v + 1]; a += 1) {
+            outflow += mInitial[a] - mCapacity[a];
+        }
+
+        return outflow;
+    }
+
+    /**
+     * Change the capacity of an arc, keeping the flow on it if it still
+     * fits. If it doesn't, the flow is cut down to the new capacity, which
+     * leaves the tail with that much more flow coming in than going out and
+     * the head with that much less; the caller sends it on.
+     * @param k Arc
+     * @param capacity New capacity
+     * @return Flow taken off the arc
+     */
+    public int setCapacity(final int k, final int capacity) {
+        int a = mArc[k];
+        int r = mReverse[a];
+        int overflow = Math.max(0, mCapacity[r] - capacity);
+
+        mInitial[a] = capacity;
+        mCapacity[r] -= overflow;
+        mCapacity[a] = capacity - mCapacity[r];
+
+        return overflow;
+    }
+
+    /**
+     * Remove all flow, in one array copy.
+     */
+    public void reset() {
+        System.arraycopy(mInitial, 0, mCapacity, 0, mInitial.length);
+    }
+
+    /**
+     * Add flow with Dinic's algorithm: find the nodes on shortest paths from
+     * the source to the sink over arcs with capacity left, send a blocking
+     * flow along them, and repeat until the sink can't be reached or the
+     * limit is met.
+     *
+     * @param source Node to send from
+     * @param sink Node to send to
+     * @param limit Most flow to add
+     * @return Flow added
+     */
+    public int dinic(final int source, final int sink, final int limit) {
+        int total = 0;
+
+        if (source == sink) {
+            return 0;
+        }
+
+        while (total < limit && levels(source, sink)) {
+            System.arraycopy(mFirst, 0, mCurrent, 0, mNodes);
+            total += blockingFlow(source, sink, limit - total);
+        }
+
+        return total;
+    }
+
+    /**
+     * Number the nodes by distance from the source over arcs with capacity
+     * left, stopping at the sink's distance.
+     * @param source Source node
+     * @param sink Sink node
+     * @return True if the sink was reached
+     */
+    private boolean levels(final int source, final int sink) {
+        int head = 0;
+        int tail = 0;
+
+        Arrays.fill(mLevel, -1);
+        mLevel[source] = 0;
+        mQueue[tail] = source;
+        tail += 1;
+
+        while (head < tail) {
+            int v = mQueue[head];
+            head += 1;
+
+            if (mLevel[sink] != -1 && mLevel[v] >= mLevel[sink]) {
+                break;
+            }
+
+            for (int a = mFirst[v]; a < mFirst[v + 1]; a += 1) {
+                int u = mTo[a];
+
+                if (mCapacity[a] > 0 && mLevel[u] == -1) {
+                    mLevel[u] = mLevel[v] + 1;
+                    mQueue[tail] = u;
+                    tail += 1;
+                }
+            }
+        }
+
+        return mLevel[sink] != -1;
+    }
+
+    /**
+     * Send flow along paths of the level graph until none is left, with an
+     * explicit stack of arcs so long paths can't overflow the call stack.
+     * Each node's current arc only moves forward, and a node with no way on
+     * is dropped from the level graph.
+     *
+     * @param source Source node
+     * @param sink Sink node
+     * @param limit Most flow to send
+     * @return Flow sent
+     */
+    private int blockingFlow(final int source, final int sink, final int limit) {
+        int sent = 0;
+        int depth = 0;
+        int v = source;
+
+        while (sent < limit) {
+            if (v == sink) {
+                int push = limit - sent;
+
+                for (int i = 0; i < depth; i += 1) {
+                    push = Math.min(push, mCapacity[mPath[i]]);
+                }
+
+                int saturated = depth;
+
+                for (int i = 0; i < depth; i += 1) {
+                    int a = mPath[i];
+
+                    mCapacity[a] -= push;
+                    mCapacity[mReverse[a]] += push;
+
+                    if (mCapacity[a] == 0 && saturated == depth) {
+                        saturated = i;
+                    }
+                }
+
+                sent += push;
+                depth = saturated;
+                v = depth == 0 ? source : mTo[mPath[depth - 1]];
+                continue;
+            }
+
+            int a = mCurrent[v];
+            int end = mFirst[v + 1];
+
+            while (a < end && (mCapacity[a] == 0 || mLevel[mTo[a]] != mLevel[v] + 1)) {
+                a += 1;
+            }
+
+            mCurrent[v] = a;
+
+            if (a < end) {
+                mPath[depth] = a;
+                depth += 1;
+                v = mTo[a];
+            } else if (depth == 0) {
+                break;
+            } else {
+                mLevel[v] = -1;
+                depth -= 1;
+                v = mTo[mReverse[mPath[depth]]];
+                mCurrent[v] += 1;
+            }
+        }
+
+        return sent;
+    }
+
+    /**
+     * Add flow with highest-label push-relabel. The source floods its arcs,
+     * then the active node with the greatest height pushes its excess to
+     * neighbors one lower, or is relabeled to one above its lowest neighbor
+     * when it can't. When the last node of a height below the node count is
+     * relabeled, the nodes above that gap can't reach the sink and are
+     * lifted past the source at once. Every few relabels the heights are
+     * reset to the exact residual distances to the sink, or past the source
+     * by the distance to the source.
+     *
+     * @param source Node to send from
+     * @param sink Node to send to
+     * @return Flow added
+     */
+    public int pushRelabel(final int source, final int sink) {
+        if (source == sink) {
+            return 0;
+        }
+
+        Arrays.fill(mExcess, 0);
+
+        for (int a = mFirst[source]; a < mFirst[source + 1]; a += 1) {
+            int push = mCapacity[a];
+
+            if (push > 0 && mTo[a] != source) {
+                mCapacity[a] = 0;
+                mCapacity[mReverse[a]] += push;
+                mExcess[mTo[a]] += push;
+                mExcess[source] -= push;
+            }
+        }
+
+        globalRelabel(source, sink);
+
+        while (mHighestActive >= 0) {
+            int v = mActive[mHighestActive];
+
+            if (v == -1) {
+                mHighestActive -= 1;
+                continue;
+            }
+
+            mActive[mHighestActive] = mNextActive[v];
+            discharge(v, source, sink);
+
+            if (mWork > (long) GLOBAL_RELABEL_WORK * mNodes + mTo.length) {
+                globalRelabel(source, sink);
+            }
+        }
+
+        return (int) mExcess[sink];
+    }
+
+    /**
+     * Push a node's excess to its admissible neighbors, relabeling it until
+     * the excess is gone.
+     * @param v Active node
+     * @param source Source node
+     * @param sink Sink node
+     */
+    private void discharge(final int v, final int source, final int sink) {
+        int height = mHeight[v];
+
+        while (mExcess[v] > 0) {
+            int a = mCurrent[v];
+
+            if (a == mFirst[v + 1]) {
+                height = relabel(v);
+
+                if (height >= 2 * mNodes) {
+                    return;
+                }
+
+                continue;
+            }
+
+            int u = mTo[a];
+
+            if (mCapacity[a] > 0 && mHeight[u] == height - 1) {
+                int push = (int) Math.min(mExcess[v], mCapacity[a]);
+
+                mCapacity[a] -= push;
+                mCapacity[mReverse[a]] += push;
+                mExcess[v] -= push;
+
+                if (mExcess[u] == 0 && u != source && u != sink) {
+                    activate(u);
+                }
+
+                mExcess[u] += push;
+
+                if (mCapacity[a] == 0) {
+                    mCurrent[v] += 1;
+                }
+            } else {
+                mCurrent[v] += 1;
+            }
+        }
+    }
+
+    /**
+     * Lift a node with no admissible arc to one above its lowest residual
+     * neighbor, closing the gap if it was the last node of its height.
+     * @param v Node to relabel
+     * @return Its new height
+     */
+    private int relabel(final int v) {
+        int old = mHeight[v];
+        int height = 2 * mNodes;
+
+        for (int a = mFirst[v]; a < mFirst[v + 1]; a += 1) {
+            if (mCapacity[a] > 0) {
+                height = Math.min(height, mHeight[mTo[a]] + 1);
+            }
+        }
+
+        mWork += mFirst[v + 1] - mFirst[v] + 1;
+
+        if (old < mNodes) {
+            unlink(v, old);
+
+            if (mLayer[old] == -1) {
+                gap(old);
+                height = Math.max(height, mNodes + 1);
+            }
+        }
+
+        mHeight[v] = height;
+        mCurrent[v] = mFirst[v];
+
+        if (height < mNodes) {
+            link(v, height);
+        }
+
+        return height;
+    }
+
+    /**
+     * Lift every node above an empty height, but below the node count, to
+     * one above the source; none of them can reach the sink any more. None
+     * of them is active, since the node being discharged is the highest.
+     * @param empty Height that no node has
+     */
+    private void gap(final int empty) {
+        for (int h = empty + 1; h <= mHighestLayer; h += 1) {
+            for (int w = mLayer[h]; w != -1; w = mNextInLayer[w]) {
+                mHeight[w] = mNodes + 1;
+                mCurrent[w] = mFirst[w];
+            }
+
+            mLayer[h] = -1;
+        }
+
+        mHighestLayer = empty - 1;
+    }
+
+    /**
+     * Set every height to the residual distance to the sink, or for nodes
+     * that can't reach it the node count plus the residual distance to the
+     * source, and rebuild the lists of nodes by height.
+     * @param source Source node
+     * @param sink Sink node
+     */
+    private void globalRelabel(final int source, final int sink) {
+        Arrays.fill(mHeight, 2 * mNodes);
+        mHeight[sink] = 0;
+        mHeight[source] = mNodes;
+        distances(sink);
+        distances(source);
+
+        Arrays.fill(mActive, -1);
+        Arrays.fill(mLayer, -1);
+        mHighestActive = -1;
+        mHighestLayer = -1;
+        mWork = 0;
+
+        for (int v = 0; v < mNodes; v += 1) {
+            mCurrent[v] = mFirst[v];
+
+            if (v == source || v == sink) {
+                continue;
+            }
+
+            if (mHeight[v] < mNodes) {
+                link(v, mHeight[v]);
+            }
+
+            if (mExcess[v] > 0 && mHeight[v] < 2 * mNodes) {
+                activate(v);
+            }
+        }
+    }
+
+    /**
+     * Breadth first search backward over arcs with capacity left, giving
+     * every node not yet labeled one more than the node it was reached from.
+     * @param root Node to search from, already labeled
+     */
+    private void distances(final int root) {
+        int head = 0;
+        int tail = 0;
+
+        mQueue[tail] = root;
+        tail += 1;
+
+        while (head < tail) {
+            int v = mQueue[head];
+            head += 1;
+
+            for (int a = mFirst[v]; a < mFirst[v + 1]; a += 1) {
+                int u = mTo[a];
+
+                if (mCapacity[mReverse[a]] > 0 && mHeight[u] == 2 * mNodes) {
+                    mHeight[u] = mHeight[v] + 1;
+                    mQueue[tail] = u;
+                    tail += 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a node to the active nodes of its height.
+     * @param v Node with excess
+     */
+    private void activate(final int v) {
+        int h = mHeight[v];
+
+        mNextActive[v] = mActive[h];
+        mActive[h] = v;
+        mHighestActive = Math.max(mHighestActive, h);
+    }
+
+    /**
+     * Add a node to the nodes of a height below the node count.
+     * @param v Node
+     * @param h Its height
+     */
+    private void link(final int v, final int h) {
+        mPreviousInLayer[v] = -1;
+        mNextInLayer[v] = mLayer[h];
+
+        if (mLayer[h] != -1) {
+            mPreviousInLayer[mLayer[h]] = v;
+        }
+
+        mLayer[h] = v;
+        mHighestLayer = Math.max(mHighestLayer, h);
+    }
+
+    /**
+     * Remove a node from the nodes of its height.
+     * @param v Node
+     * @param h Its height
+     */
+    private void unlink(final int v, final int h) {
+        if (mPreviousInLayer[v] == -1) {
+            mLayer[h] = mNextInLayer[v];
+        } else {
+            mNextInLayer[mPreviousInLayer[v]] = mNextInLayer[v];
+        }
+
+        if (mNextInLayer[v] != -1) {
+            mPreviousInLayer[mNextInLayer[v]] = mPreviousInLayer[v];
+        }
+    }
+}
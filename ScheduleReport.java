@@ -0,0 +1,140 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+
+/**
+ * Critical path and slack of a DAG of tasks with unlimited workers, the
+ * schedule that ITopologicalSortAlgorithms.minScheduleLength measures.
+ *
+ * One forward pass over a topological order gives every task's earliest
+ * start and the makespan, and one backward pass gives every task's latest
+ * start that doesn't delay the makespan. Tasks with no slack between the two
+ * are critical.
+ */
+public final class ScheduleReport {
+    /** The tasks with dense ids. */
+    private final IndexedGraph mGraph;
+
+    /** Earliest start of every task. */
+    private final int[] mEarliest;
+
+    /** Latest start of every task. */
+    private final int[] mLatest;
+
+    /** Time when the last task finishes. */
+    private final int mMakespan;
+
+    /** One longest path through the DAG. */
+    private final List<String> mCriticalPath;
+
+    /**
+     * Compute the report.
+     * @param g DAG of tasks, an edge v -> u means u can't start until v is done
+     * @param times Time of every task
+     * @throws CycleException If the graph has a cycle
+     */
+    public ScheduleReport(final IGraph g, final Map<String, Integer> times) {
+        mGraph = IndexedGraph.of(g);
+
+        int n = mGraph.size();
+        int[] time = mGraph.times(times);
+        int[] order = mGraph.topologicalOrder();
+        int makespan = 0;
+
+        mEarliest = new int[n];
+        mLatest = new int[n];
+
+        for (int v : order) {
+            int finish = mEarliest[v] + time[v];
+
+            makespan = Math.max(makespan, finish);
+
+            for (int u : mGraph.getSuccessors(v)) {
+                mEarliest[u] = Math.max(mEarliest[u], finish);
+            }
+        }
+
+        for (int k = n - 1; k >= 0; k -= 1) {
+            int v = order[k];
+            int latestFinish = makespan;
+
+            for (int u : mGraph.getSuccessors(v)) {
+                latestFinish = Math.min(latestFinish, mLatest[u]);
+            }
+
+            mLatest[v] = latestFinish - time[v];
+        }
+
+        mMakespan = makespan;
+
+        List<String> path = new ArrayList<String>();
+        int v = -1;
+
+        for (int u : order) {
+            if (mLatest[u] == 0) {
+                v = u;
+                break;
+            }
+        }
+
+        while (v != -1) {
+            int finish = mEarliest[v] + time[v];
+            int next = -1;
+
+            path.add(mGraph.getVertex(v));
+
+            for (int u : mGraph.getSuccessors(v)) {
+                if (mEarliest[u] == finish && mLatest[u] == finish) {
+                    next = u;
+                    break;
+                }
+            }
+
+            v = next;
+        }
+
+        mCriticalPath = Collections.unmodifiableList(path);
+    }
+
+    /**
+     * @return Time when the last task finishes, same as minScheduleLength
+     */
+    public int getMakespan() {
+        return mMakespan;
+    }
+
+    /**
+     * @return Tasks along one longest path, in order
+     */
+    public List<String> getCriticalPath() {
+        return mCriticalPath;
+    }
+
+    /**
+     * @param v Task
+     * @return Earliest time it can start
+     */
+    public int getEarliestStart(final String v) {
+        return mEarliest[mGraph.getIndex(v)];
+    }
+
+    /**
+     * @param v Task
+     * @return Latest time it can start without delaying the makespan
+     */
+    public int getLatestStart(final String v) {
+        return mLatest[mGraph.getIndex(v)];
+    }
+
+    /**
+     * @param v Task
+     * @return How long it can be delayed without delaying the makespan
+     */
+    public int getSlack(final String v) {
+        int i = mGraph.getIndex(v);
+        return mLatest[i] - mEarliest[i];
+    }
+}
@@ -0,0 +1,257 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Test CompactGraph: every test from TestGraph, plus tests of its int
+ * adjacency API and its incoming edges.
+ */
+public class TestCompactGraph extends TestGraph {
+    /** Seed for the random changes. */
+    private static final long SEED = 311L;
+
+    /** Vertices in the churn test. */
+    private static final int VERTICES = 500;
+
+    /** Changes made in the churn test. */
+    private static final int CHANGES = 20000;
+
+    @Override
+    protected IGraph newGraph() {
+        return new CompactGraph();
+    }
+
+    /**
+     * Check that the int adjacency of every vertex lists the same edges as
+     * getOutgoingEdges, that its incoming rows list the same edges as
+     * getIncomingEdges and are the reverse of the outgoing rows, and that ids
+     * and names match.
+     *
+     * @param g Graph to check
+     */
+    private static void assertIntAdjacency(final CompactGraph g) {
+        HashSet<Pair<String, String>> out = new HashSet<Pair<String, String>>();
+        HashSet<Pair<String, String>> in = new HashSet<Pair<String, String>>();
+        int vertices = 0;
+
+        for (int id = 0; id < g.getIdBound(); id += 1) {
+            String v = g.getName(id);
+
+            if (v == null) {
+                continue;
+            }
+
+            vertices += 1;
+            assertThat("Id of the name of " + id, g.getId(v), equalTo(id));
+
+            HashSet<Pair<String, String>> heads = new HashSet<Pair<String, String>>();
+
+            for (int k = 0; k < g.getOutDegree(id); k += 1) {
+                heads.add(new Pair<String, String>(v, g.getName(g.getSuccessor(id, k))));
+            }
+
+            assertThat("No duplicate heads from " + v, heads.size(), equalTo(g.getOutDegree(id)));
+            assertThat("Same edges from " + v, heads,
+                    equalTo(new HashSet<Pair<String, String>>(g.getOutgoingEdges(v))));
+
+            HashSet<Pair<String, String>> tails = new HashSet<Pair<String, String>>();
+
+            for (int k = 0; k < g.getInDegree(id); k += 1) {
+                tails.add(new Pair<String, String>(g.getName(g.getPredecessor(id, k)), v));
+            }
+
+            assertThat("No duplicate tails into " + v, tails.size(), equalTo(g.getInDegree(id)));
+            assertThat("Same edges into " + v, tails,
+                    equalTo(new HashSet<Pair<String, String>>(g.getIncomingEdges(v))));
+            out.addAll(heads);
+            in.addAll(tails);
+        }
+
+        assertThat("Every vertex has an id", vertices, equalTo(g.getVertices().size()));
+        assertThat("Incoming rows are the reverse of outgoing rows", in, equalTo(out));
+    }
+
+    /**
+     * Test that the int adjacency stays the same as the edges through many
+     * random additions and deletions of vertices and edges, which move rows,
+     * compact the slab and reuse ids, against a set of the edges.
+     */
+    @Test
+    public final void testIntAdjacencyUnderChurn() {
+        CompactGraph g = new CompactGraph();
+        HashSet<Pair<String, String>> edges = new HashSet<Pair<String, String>>();
+        Random r = new Random(SEED);
+
+        for (int i = 0; i < VERTICES; i += 1) {
+            g.addVertex(GraphGenerator.vertex(i));
+        }
+
+        for (int c = 0; c < CHANGES; c += 1) {
+            String v = GraphGenerator.vertex(r.nextInt(VERTICES));
+            String u = GraphGenerator.vertex(r.nextInt(VERTICES));
+            Pair<String, String> e = new Pair<String, String>(v, u);
+            int change = r.nextInt(20);
+
+            if (change == 0) {
+                g.deleteVertex(v);
+
+                List<Pair<String, String>> gone = new ArrayList<Pair<String, String>>();
+
+                for (Pair<String, String> f : edges) {
+                    if (f.first.equals(v) || f.second.equals(v)) {
+                        gone.add(f);
+                    }
+                }
+
+                edges.removeAll(gone);
+                g.addVertex(v);
+            } else if (change < 6) {
+                g.deleteEdge(e);
+                edges.remove(e);
+            } else {
+                g.addEdge(e);
+                edges.add(e);
+            }
+        }
+
+        HashSet<Pair<String, String>> actual = new HashSet<Pair<String, String>>();
+
+        for (String v : g.getVertices()) {
+            actual.addAll(g.getOutgoingEdges(v));
+        }
+
+        assertThat("Same edges as the reference set", actual, equalTo(edges));
+        assertThat("Ids stay dense", g.getIdBound(), equalTo(VERTICES));
+        assertIntAdjacency(g);
+    }
+
+    /**
+     * Test that a deleted vertex's id is handed out again without any of
+     * its old edges.
+     */
+    @Test
+    public final void testDeletedIdIsReused() {
+        CompactGraph g = new CompactGraph();
+
+        g.addVertex("a");
+        g.addVertex("b");
+        g.addEdge(new Pair<String, String>("a", "b"));
+        g.addEdge(new Pair<String, String>("b", "a"));
+
+        int id = g.getId("b");
+
+        g.deleteVertex("b");
+        g.addVertex("c");
+
+        assertThat("Deleted vertex has no id", g.getId("b"), equalTo(-1));
+        assertThat("New vertex reuses the id", g.getId("c"), equalTo(id));
+        assertThat("Reused id has no edges", g.getOutDegree(id), equalTo(0));
+        assertThat("Edge into the deleted vertex is gone", g.getOutDegree(g.getId("a")), equalTo(0));
+        assertThat("Ids stay dense", g.getIdBound(), is(2));
+        assertIntAdjacency(g);
+    }
+
+    /**
+     * Test getIncomingEdges against the outgoing edges, for a missing
+     * vertex, and after edge and vertex deletions.
+     */
+    @Test
+    public final void testIncomingEdges() {
+        CompactGraph g = new CompactGraph();
+
+        for (String v : new String[] {"a", "b", "c", "d"}) {
+            g.addVertex(v);
+        }
+
+        g.addEdge(new Pair<String, String>("a", "d"));
+        g.addEdge(new Pair<String, String>("b", "d"));
+        g.addEdge(new Pair<String, String>("c", "d"));
+        g.addEdge(new Pair<String, String>("d", "d"));
+        g.addEdge(new Pair<String, String>("d", "a"));
+
+        assertThat("Missing vertex has no incoming edges", g.getIncomingEdges("x"), nullValue());
+        assertThat("Vertex with no incoming edges", g.getIncomingEdges("b").isEmpty(), is(true));
+        assertThat("Every edge into d, the loop included", g.getInDegree(g.getId("d")), equalTo(4));
+        assertIntAdjacency(g);
+
+        g.deleteEdge(new Pair<String, String>("a", "d"));
+        g.deleteEdge(new Pair<String, String>("d", "d"));
+
+        HashSet<Pair<String, String>> into = new HashSet<Pair<String, String>>();
+
+        into.add(new Pair<String, String>("b", "d"));
+        into.add(new Pair<String, String>("c", "d"));
+        assertThat("Deleted edges are gone from the head", new HashSet<Pair<String, String>>(
+                g.getIncomingEdges("d")), equalTo(into));
+        assertIntAdjacency(g);
+
+        g.deleteVertex("b");
+
+        into.remove(new Pair<String, String>("b", "d"));
+        assertThat("Deleted vertex's edges are gone from the head", new HashSet<Pair<String, String>>(
+                g.getIncomingEdges("d")), equalTo(into));
+        assertIntAdjacency(g);
+    }
+
+    /**
+     * Test that deleting a vertex removes exactly its edges in both
+     * directions, self loop included, and leaves every other row whole, for
+     * both a hub and a leaf of a star.
+     */
+    @Test
+    public final void testDeleteVertexRemovesOnlyItsEdges() {
+        CompactGraph g = new CompactGraph();
+        String hub = "hub";
+
+        g.addVertex(hub);
+
+        for (int i = 0; i < VERTICES; i += 1) {
+            String v = GraphGenerator.vertex(i);
+
+            g.addVertex(v);
+            g.addEdge(new Pair<String, String>(hub, v));
+            g.addEdge(new Pair<String, String>(v, hub));
+
+            if (i > 0) {
+                g.addEdge(new Pair<String, String>(GraphGenerator.vertex(i - 1), v));
+            }
+        }
+
+        g.addEdge(new Pair<String, String>(hub, hub));
+
+        String leaf = GraphGenerator.vertex(VERTICES / 2);
+
+        g.deleteVertex(leaf);
+
+        assertThat("Hub loses the leaf's edge out", g.getOutDegree(g.getId(hub)), equalTo(VERTICES));
+        assertThat("Hub loses the leaf's edge in", g.getInDegree(g.getId(hub)), equalTo(VERTICES));
+        assertThat("Chain is cut before the leaf",
+                g.getOutDegree(g.getId(GraphGenerator.vertex(VERTICES / 2 - 1))), equalTo(1));
+        assertThat("Chain is cut after the leaf",
+                g.getInDegree(g.getId(GraphGenerator.vertex(VERTICES / 2 + 1))), equalTo(1));
+        assertIntAdjacency(g);
+
+        g.deleteVertex(hub);
+
+        for (String v : g.getVertices()) {
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                assertThat("Only chain edges are left", e.first.equals(hub) || e.second.equals(hub), is(false));
+            }
+        }
+
+        assertThat("Only the chain is left", g.getInDegree(g.getId(GraphGenerator.vertex(1))), equalTo(1));
+        assertIntAdjacency(g);
+    }
+}
@@ -0,0 +1,231 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.empty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Test ConcurrentGraph: every test from TestGraph, plus stress tests with
+ * several threads changing the graph at once.
+ */
+public class TestConcurrentGraph extends TestGraph {
+    /** Number of threads in the stress tests. */
+    private static final int THREADS = 8;
+
+    /** Vertices added by each thread. */
+    private static final int VERTICES_PER_THREAD = 500;
+
+    /** Outgoing edges added from each vertex. */
+    private static final int DEGREE = 8;
+
+    /** Vertices deleted in each round of the delete race. */
+    private static final int HUBS = 400;
+
+    /** Vertices each thread adds edges from into every hub in the delete race. */
+    private static final int TAILS_PER_THREAD = 50;
+
+    /** Rounds of the delete race, each one a fresh chance to lose the race. */
+    private static final int ROUNDS = 10;
+
+    @Override
+    protected IGraph newGraph() {
+        return new ConcurrentGraph();
+    }
+
+    /**
+     * Run a piece of work on several threads at once and wait for all of
+     * them.
+     *
+     * @param work Work for each thread, started together
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private static void runTogether(final List<Runnable> work) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (final Runnable r : work) {
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        r.run();
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+
+            t.start();
+            threads.add(t);
+        }
+
+        start.countDown();
+
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertThat("Threads shouldn't throw: " + errors, errors.isEmpty(), is(true));
+    }
+
+    /**
+     * Test that vertices and edges added from many threads at once all end up
+     * in the graph. Every thread adds edges into the vertices of the other
+     * threads, and every vertex has an edge to the same hub.
+     *
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Test
+    public final void testConcurrentAddLosesNoEdge() throws InterruptedException {
+        final IGraph g = newGraph();
+        final int n = THREADS * VERTICES_PER_THREAD;
+        final String hub = GraphGenerator.vertex(0);
+        List<Runnable> addVertices = new ArrayList<Runnable>();
+        List<Runnable> addEdges = new ArrayList<Runnable>();
+
+        for (int t = 0; t < THREADS; t += 1) {
+            final int first = t * VERTICES_PER_THREAD;
+
+            addVertices.add(new Runnable() {
+                public void run() {
+                    for (int i = first; i < first + VERTICES_PER_THREAD; i += 1) {
+                        g.addVertex(GraphGenerator.vertex(i));
+                    }
+                }
+            });
+
+            addEdges.add(new Runnable() {
+                public void run() {
+                    for (int i = first; i < first + VERTICES_PER_THREAD; i += 1) {
+                        String v = GraphGenerator.vertex(i);
+
+                        for (int k = 1; k <= DEGREE; k += 1) {
+                            String u = GraphGenerator.vertex((i + k * VERTICES_PER_THREAD) % n);
+                            g.addEdge(new Pair<String, String>(v, u));
+                        }
+
+                        g.addEdge(new Pair<String, String>(v, hub));
+                    }
+                }
+            });
+        }
+
+        runTogether(addVertices);
+        runTogether(addEdges);
+
+        assertThat("Every vertex should be there", new HashSet<String>(g.getVertices()).size(), equalTo(n));
+
+        for (int i = 0; i < n; i += 1) {
+            String v = GraphGenerator.vertex(i);
+            HashSet<Pair<String, String>> actual = new HashSet<Pair<String, String>>(g.getOutgoingEdges(v));
+
+            for (int k = 1; k <= DEGREE; k += 1) {
+                Pair<String, String> e = new Pair<String, String>(
+                        v, GraphGenerator.vertex((i + k * VERTICES_PER_THREAD) % n));
+
+                assertThat("Edge should not be lost: " + e, actual.contains(e), is(true));
+            }
+
+            Pair<String, String> e = new Pair<String, String>(v, hub);
+
+            assertThat("Edge to hub should not be lost: " + e, actual.contains(e), is(true));
+        }
+    }
+
+    /**
+     * Test that deleting vertices while other threads add edges into them
+     * leaves no edge pointing at a deleted vertex, not even once vertices
+     * with the same names are added back. Every adding thread adds edges from
+     * many vertices into each hub in turn, and the deleting thread waits
+     * until an adding thread has reached a hub before deleting it. So every
+     * delete walks the incoming edges of a hub while more of them are being
+     * added.
+     *
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Test
+    public final void testDeleteVertexDuringAddEdge() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round += 1) {
+            final IGraph g = newGraph();
+            final AtomicInteger reached = new AtomicInteger(-1);
+            List<Runnable> work = new ArrayList<Runnable>();
+
+            for (int h = 0; h < HUBS; h += 1) {
+                g.addVertex(hub(h));
+            }
+
+            for (int i = 0; i < THREADS * TAILS_PER_THREAD; i += 1) {
+                g.addVertex(GraphGenerator.vertex(i));
+            }
+
+            for (int t = 0; t < THREADS; t += 1) {
+                final int first = t * TAILS_PER_THREAD;
+
+                work.add(new Runnable() {
+                    public void run() {
+                        for (int h = 0; h < HUBS; h += 1) {
+                            if (reached.get() < h) {
+                                reached.set(h);
+                            }
+
+                            for (int i = first; i < first + TAILS_PER_THREAD; i += 1) {
+                                g.addEdge(new Pair<String, String>(GraphGenerator.vertex(i), hub(h)));
+                            }
+                        }
+                    }
+                });
+            }
+
+            work.add(new Runnable() {
+                public void run() {
+                    for (int h = 0; h < HUBS; h += 1) {
+                        while (reached.get() < h) {
+                            Thread.yield();
+                        }
+
+                        g.deleteVertex(hub(h));
+                    }
+                }
+            });
+
+            runTogether(work);
+
+            for (int h = 0; h < HUBS; h += 1) {
+                assertThat("Deleted vertex should have undefined edges", g.getOutgoingEdges(hub(h)),
+                        is(nullValue()));
+
+                g.addVertex(hub(h));
+            }
+
+            for (String v : g.getVertices()) {
+                Collection<Pair<String, String>> actual = g.getOutgoingEdges(v);
+
+                assertThat("No edge into a deleted vertex in round " + round, actual, is(empty()));
+            }
+        }
+    }
+
+    /**
+     * Name of a hub in the delete race.
+     * @param h Index of the hub
+     * @return Vertex name
+     */
+    private static String hub(final int h) {
+        return "hub" + h;
+    }
+}
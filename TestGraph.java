@@ -3,12 +3,20 @@ import static org.junit.Assert.assertThat;
 
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.Matchers.empty;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import edu.iastate.cs311.f13.hw6.IGraph;
 import edu.iastate.cs311.f13.hw6.IGraph.Pair;
@@ -20,6 +28,33 @@ public class TestGraph {
     /** Number of vertices to use for testing. */
     private static final int MAX_VERTICES = 10;
 
+    /** Seed for generated graphs. */
+    private static final long SEED = 311L;
+
+    /** Number of vertices in generated graphs. */
+    private static final int LARGE_VERTICES = 2000;
+
+    /**
+     * Create the graph under test. Subclasses override this to run every test
+     * against another IGraph implementation.
+     * @return A new empty graph
+     */
+    protected IGraph newGraph() {
+        return TestRunner.newGraph();
+    }
+
+    /**
+     * Generator that builds its graphs with newGraph().
+     * @return A new generator seeded with SEED
+     */
+    private GraphGenerator generator() {
+        return new GraphGenerator(SEED, new GraphFactory() {
+            public IGraph newGraph() {
+                return TestGraph.this.newGraph();
+            }
+        });
+    }
+
     /**
      * Test that creating a new instance of the IGraph implementation doens't
      * give us an exception.
@@ -37,7 +72,7 @@ public class TestGraph {
      */
     @Test
     public final void testEmptyGraph() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
 
         Collection<String> actual = g.getVertices();
 
@@ -49,7 +84,7 @@ public class TestGraph {
      */
     @Test
     public final void testAddOneVertex() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
 
         g.addVertex(v);
@@ -64,7 +99,7 @@ public class TestGraph {
      */
     @Test
     public final void testAddMultipleVertices() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         ArrayList<String> vertices = new ArrayList<String>();
 
         for (char c = 'A'; c < 'A' + MAX_VERTICES; c += 1) {
@@ -87,7 +122,7 @@ public class TestGraph {
      */
     @Test
     public final void testDeleteSingleVertex() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
 
         g.addVertex(v);
@@ -103,7 +138,7 @@ public class TestGraph {
      */
     @Test
     public final void testDeleteMultipleVertices() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
 
         for (char c = 'A'; c < 'A' + MAX_VERTICES; c += 1) {
             String s = "" + c;
@@ -125,7 +160,7 @@ public class TestGraph {
      */
     @Test
     public final void testEmptyEdgesForSingleVertex() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
 
         g.addVertex(v);
@@ -140,7 +175,7 @@ public class TestGraph {
      */
     @Test
     public final void testEmptyEdgesForTwoVertices() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
         String u = "B";
 
@@ -162,7 +197,7 @@ public class TestGraph {
     @Test
     @SuppressWarnings("unchecked")
     public final void testAddVertexMultipleTimes() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
         String u = "B";
 
@@ -192,7 +227,7 @@ public class TestGraph {
      */
     @Test
     public final void testEdgeToEmptyGraph() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
         String u = "B";
 
@@ -215,7 +250,7 @@ public class TestGraph {
     @Test
     @SuppressWarnings("unchecked")
     public final void testMultipleEdgesSimple() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
         String u = "B";
         String w = "C";
@@ -247,7 +282,7 @@ public class TestGraph {
      */
     @Test
     public final void testEdgesForDeletedVertex() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
         String u = "B";
 
@@ -274,7 +309,7 @@ public class TestGraph {
      */
     @Test
     public final void testEdgesForNonexistantVertex() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
         String u = "B";
 
@@ -290,7 +325,7 @@ public class TestGraph {
      */
     @Test
     public final void testRemovingEdge() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
         String u = "B";
 
@@ -316,7 +351,7 @@ public class TestGraph {
      */
     @Test
     public final void testRemovingVertexWithIncomingEdge() {
-        IGraph g = TestRunner.newGraph();
+        IGraph g = newGraph();
         String v = "A";
         String u = "B";
 
@@ -337,4 +372,360 @@ public class TestGraph {
 
         assertThat("Second vertex should not exist", actual, is(nullValue()));
     }
+
+    /**
+     * Test that a vertex added again after being deleted starts with no edges.
+     */
+    @Test
+    public final void testReaddDeletedVertexHasNoEdges() {
+        IGraph g = newGraph();
+        String v = "A";
+        String u = "B";
+
+        Pair<String, String> e1 = new Pair<String, String>(v, u);
+
+        g.addVertex(v);
+        g.addVertex(u);
+
+        g.addEdge(e1);
+
+        g.deleteVertex(v);
+        g.addVertex(v);
+
+        Collection<Pair<String, String>> actual = g.getOutgoingEdges(v);
+
+        assertThat("Re-added vertex should have no edges", actual, is(empty()));
+
+        actual = g.getOutgoingEdges(u);
+
+        assertThat("Second vertex should have no edges", actual, is(empty()));
+    }
+
+    /**
+     * Test that deleting a vertex leaves edges between other vertices alone.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public final void testDeleteVertexKeepsUnrelatedEdges() {
+        IGraph g = newGraph();
+        String v = "A";
+        String u = "B";
+        String w = "C";
+        String x = "D";
+
+        Pair<String, String> e1 = new Pair<String, String>(v, u);
+        Pair<String, String> e2 = new Pair<String, String>(w, x);
+        Pair<String, String> e3 = new Pair<String, String>(x, v);
+
+        g.addVertex(v);
+        g.addVertex(u);
+        g.addVertex(w);
+        g.addVertex(x);
+
+        g.addEdge(e1);
+        g.addEdge(e2);
+        g.addEdge(e3);
+
+        g.deleteVertex(u);
+
+        Collection<Pair<String, String>> actual = g.getOutgoingEdges(v);
+
+        assertThat("First vertex should have no edges", actual, is(empty()));
+
+        actual = g.getOutgoingEdges(w);
+
+        assertThat("Third vertex should keep its edge", actual, hasItems(e2));
+
+        actual = g.getOutgoingEdges(x);
+
+        assertThat("Fourth vertex should keep its edge", actual, hasItems(e3));
+    }
+
+    /**
+     * Test that edges added out of vertex order end up on the right vertex.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public final void testEdgesAddedOutOfOrder() {
+        IGraph g = newGraph();
+
+        for (char c = 'A'; c < 'A' + MAX_VERTICES; c += 1) {
+            g.addVertex("" + c);
+        }
+
+        for (char c = 'A' + MAX_VERTICES - 1; c > 'A'; c -= 1) {
+            g.addEdge(new Pair<String, String>("" + c, "" + (char) (c - 1)));
+            g.addEdge(new Pair<String, String>("A", "" + c));
+        }
+
+        Collection<Pair<String, String>> actual = g.getOutgoingEdges("A");
+
+        assertThat("First vertex should have an edge to every other vertex",
+                actual.size(), is(MAX_VERTICES - 1));
+
+        for (char c = 'A' + 1; c < 'A' + MAX_VERTICES; c += 1) {
+            Pair<String, String> e = new Pair<String, String>("" + c, "" + (char) (c - 1));
+
+            actual = g.getOutgoingEdges("" + c);
+
+            assertThat("Vertex should only have its own edge", actual.size(), is(1));
+            assertThat("Vertex should only have its own edge", actual, hasItems(e));
+        }
+    }
+
+    /**
+     * Test deleting a vertex that many other vertices have edges into.
+     */
+    @Test
+    public final void testDeleteVertexWithManyIncomingEdges() {
+        IGraph g = generator().fanOut(LARGE_VERTICES);
+        String root = GraphGenerator.vertex(0);
+        String hub = GraphGenerator.vertex(LARGE_VERTICES + 1);
+
+        g.deleteVertex(hub);
+
+        assertThat("Deleted vertex should have undefined edges", g.getOutgoingEdges(hub), is(nullValue()));
+        assertThat("Root should keep its edges", g.getOutgoingEdges(root).size(), is(LARGE_VERTICES));
+
+        for (int i = 1; i <= LARGE_VERTICES; i += 1) {
+            Collection<Pair<String, String>> actual = g.getOutgoingEdges(GraphGenerator.vertex(i));
+
+            assertThat("Edge into deleted vertex should be gone", actual, is(empty()));
+        }
+    }
+
+    /**
+     * Test that deleting half the vertices of a large graph removes exactly
+     * the edges touching them.
+     */
+    @Test
+    public final void testDeleteVerticesFromLargeGraph() {
+        IGraph g = generator().randomDag(LARGE_VERTICES, 8.0 / LARGE_VERTICES);
+        HashSet<String> deleted = new HashSet<String>();
+        HashSet<Pair<String, String>> expected = new HashSet<Pair<String, String>>();
+
+        for (int i = 0; i < LARGE_VERTICES; i += 2) {
+            deleted.add(GraphGenerator.vertex(i));
+        }
+
+        for (String v : g.getVertices()) {
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                if (!deleted.contains(e.first) && !deleted.contains(e.second)) {
+                    expected.add(e);
+                }
+            }
+        }
+
+        for (String v : deleted) {
+            g.deleteVertex(v);
+        }
+
+        HashSet<Pair<String, String>> actual = new HashSet<Pair<String, String>>();
+
+        for (String v : g.getVertices()) {
+            assertThat("Deleted vertex should be gone", deleted.contains(v), is(false));
+
+            actual.addAll(g.getOutgoingEdges(v));
+        }
+
+        assertThat("Remaining vertices", g.getVertices().size(), is(LARGE_VERTICES - deleted.size()));
+        assertThat("Only edges between remaining vertices should be left", actual, is(expected));
+    }
+
+    /**
+     * Collect every edge of a graph.
+     * @param g Graph to read
+     * @return Set of all edges
+     */
+    private static HashSet<Pair<String, String>> allEdges(final IGraph g) {
+        HashSet<Pair<String, String>> edges = new HashSet<Pair<String, String>>();
+
+        for (String v : g.getVertices()) {
+            edges.addAll(g.getOutgoingEdges(v));
+        }
+
+        return edges;
+    }
+
+    /**
+     * Test that a graph written to a graph file loads back the same.
+     * @throws IOException If the temporary file can't be used
+     */
+    @Test
+    public final void testGraphFileRoundTrip() throws IOException {
+        GraphGenerator gen = generator();
+        IGraph g = gen.flowNetwork(LARGE_VERTICES / 50, 50, 4);
+        Map<Pair<String, String>, Integer> capacities = gen.capacities(g, LARGE_VERTICES);
+        Map<String, Integer> times = gen.weights(g, LARGE_VERTICES);
+
+        g.addVertex("\u00e9t\u00e9");
+        g.addEdge(new Pair<String, String>("\u00e9t\u00e9", GraphGenerator.SINK));
+
+        File file = File.createTempFile("graph", ".bin");
+
+        try {
+            GraphFile.write(file, g, capacities, times);
+
+            GraphFile loaded = GraphFile.load(file);
+
+            assertThat("Loaded vertices", new HashSet<String>(loaded.getGraph().getVertices()),
+                    equalTo(new HashSet<String>(g.getVertices())));
+            assertThat("Loaded edges", allEdges(loaded.getGraph()), equalTo(allEdges(g)));
+            assertThat("Loaded capacities", loaded.getCapacities().get(
+                        new Pair<String, String>("\u00e9t\u00e9", GraphGenerator.SINK)), equalTo(0));
+
+            for (Pair<String, String> e : capacities.keySet()) {
+                assertThat("Loaded capacity of " + e, loaded.getCapacities().get(e), equalTo(capacities.get(e)));
+            }
+
+            for (String v : times.keySet()) {
+                assertThat("Loaded time of " + v, loaded.getTimes().get(v), equalTo(times.get(v)));
+            }
+
+            GraphFile.write(file, g, null, null);
+
+            loaded = GraphFile.load(file);
+
+            assertThat("Loaded edges without weights", allEdges(loaded.getGraph()), equalTo(allEdges(g)));
+            assertThat("No capacities stored", loaded.getCapacities(), is(nullValue()));
+            assertThat("No times stored", loaded.getTimes(), is(nullValue()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * View of a graph that lists vertices and edges in reverse order, to
+     * catch code that depends on the iteration order of the implementation.
+     */
+    private static final class Reversed implements IGraph {
+        /** Graph being viewed. */
+        private final IGraph mGraph;
+
+        /**
+         * @param g Graph being viewed
+         */
+        Reversed(final IGraph g) {
+            mGraph = g;
+        }
+
+        /**
+         * @param c Collection to copy
+         * @param <T> Element type
+         * @return Its elements in reverse order
+         */
+        private static <T> List<T> reverse(final Collection<T> c) {
+            List<T> list = new ArrayList<T>(c);
+            Collections.reverse(list);
+            return list;
+        }
+
+        @Override
+        public void addVertex(final String v) {
+            mGraph.addVertex(v);
+        }
+
+        @Override
+        public void addEdge(final Pair<String, String> e) {
+            mGraph.addEdge(e);
+        }
+
+        @Override
+        public Collection<String> getVertices() {
+            return reverse(mGraph.getVertices());
+        }
+
+        @Override
+        public Collection<Pair<String, String>> getOutgoingEdges(final String v) {
+            Collection<Pair<String, String>> edges = mGraph.getOutgoingEdges(v);
+            return edges == null ? null : reverse(edges);
+        }
+
+        @Override
+        public void deleteVertex(final String v) {
+            mGraph.deleteVertex(v);
+        }
+
+        @Override
+        public void deleteEdge(final Pair<String, String> e) {
+            mGraph.deleteEdge(e);
+        }
+    }
+
+    /**
+     * Test that generated capacities and times only depend on the seed, not
+     * on the order the graph lists its vertices and edges in.
+     */
+    @Test
+    public final void testGeneratedWeightsDontDependOnIterationOrder() {
+        GraphGenerator gen = generator();
+        GraphGenerator other = generator();
+        IGraph g = gen.flowNetwork(LARGE_VERTICES / 50, 50, 4);
+        IGraph reversed = new Reversed(other.flowNetwork(LARGE_VERTICES / 50, 50, 4));
+
+        assertThat("Same graph", allEdges(reversed), equalTo(allEdges(g)));
+        assertThat("Same capacities", other.capacities(reversed, LARGE_VERTICES),
+                equalTo(gen.capacities(g, LARGE_VERTICES)));
+        assertThat("Same symmetric capacities", other.symmetricCapacities(reversed, LARGE_VERTICES),
+                equalTo(gen.symmetricCapacities(g, LARGE_VERTICES)));
+        assertThat("Same times", other.weights(reversed, LARGE_VERTICES),
+                equalTo(gen.weights(g, LARGE_VERTICES)));
+    }
+
+    /**
+     * Test that a frozen graph has the same vertices and edges, hands out the
+     * same unmodifiable collections on every call, and can't be changed.
+     */
+    @Test
+    public final void testFreeze() {
+        IGraph g = newGraph();
+
+        for (int i = 0; i < LARGE_VERTICES; i += 1) {
+            g.addVertex(GraphGenerator.vertex(i));
+        }
+
+        for (int i = 1; i < LARGE_VERTICES; i += 1) {
+            g.addEdge(new Pair<String, String>(GraphGenerator.vertex(i / 2), GraphGenerator.vertex(i)));
+        }
+
+        FrozenGraph frozen = FrozenGraph.freeze(g);
+        String v = GraphGenerator.vertex(1);
+        Pair<String, String> e = new Pair<String, String>(v, GraphGenerator.vertex(0));
+
+        assertThat("Frozen vertices", new HashSet<String>(frozen.getVertices()),
+                equalTo(new HashSet<String>(g.getVertices())));
+        assertThat("Frozen edges", allEdges(frozen), equalTo(allEdges(g)));
+        assertThat("Nonexistant vertex should have undefined edges", frozen.getOutgoingEdges("A"),
+                is(nullValue()));
+        assertThat("Edges should be cached", frozen.getOutgoingEdges(v),
+                is(sameInstance(frozen.getOutgoingEdges(v))));
+        assertThat("Freezing twice should give the same graph", FrozenGraph.freeze(frozen), is(sameInstance(frozen)));
+
+        g.addEdge(e);
+
+        assertThat("Later changes shouldn't show up", frozen.getOutgoingEdges(v).contains(e), is(false));
+
+        int rejected = 0;
+
+        try {
+            frozen.addEdge(e);
+        } catch (UnsupportedOperationException ex) {
+            rejected += 1;
+        }
+
+        try {
+            frozen.deleteVertex(v);
+        } catch (UnsupportedOperationException ex) {
+            rejected += 1;
+        }
+
+        try {
+            frozen.getOutgoingEdges(v).clear();
+        } catch (UnsupportedOperationException ex) {
+            rejected += 1;
+        }
+
+        assertThat("Frozen graph should reject changes", rejected, is(3));
+        assertThat("Frozen graph should be unchanged", frozen.getOutgoingEdges(v).size(), is(2));
+    }
 }
@@ -0,0 +1,205 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+
+/**
+ * Test GraphFile: every test from TestGraph reads its graph back through the
+ * mapped view that GraphFile.load() returns, plus tests of the view itself.
+ */
+public class TestGraphFile extends TestGraph {
+    /**
+     * Graph that keeps its changes in a ConcurrentGraph and answers every
+     * read from a graph file. After a change the next read writes the graph
+     * out and maps it again.
+     */
+    private static final class MappedView implements IGraph {
+        /** Graph holding the changes. */
+        private final IGraph mChanges = new ConcurrentGraph();
+
+        /** Mapped graph, or null if it has to be written again. */
+        private IGraph mMapped;
+
+        /**
+         * @return The mapped graph, written and loaded again if the graph
+         *         changed since the last read
+         */
+        private IGraph mapped() {
+            if (mMapped == null) {
+                try {
+                    File file = File.createTempFile("graph", ".bin");
+
+                    try {
+                        GraphFile.write(file, mChanges, null, null);
+                        mMapped = GraphFile.load(file).getGraph();
+                    } finally {
+                        file.delete();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Graph file can't be used", e);
+                }
+            }
+
+            return mMapped;
+        }
+
+        @Override
+        public void addVertex(final String v) {
+            mChanges.addVertex(v);
+            mMapped = null;
+        }
+
+        @Override
+        public void addEdge(final Pair<String, String> e) {
+            mChanges.addEdge(e);
+            mMapped = null;
+        }
+
+        @Override
+        public Collection<String> getVertices() {
+            return mapped().getVertices();
+        }
+
+        @Override
+        public Collection<Pair<String, String>> getOutgoingEdges(final String v) {
+            return mapped().getOutgoingEdges(v);
+        }
+
+        @Override
+        public void deleteVertex(final String v) {
+            mChanges.deleteVertex(v);
+            mMapped = null;
+        }
+
+        @Override
+        public void deleteEdge(final Pair<String, String> e) {
+            mChanges.deleteEdge(e);
+            mMapped = null;
+        }
+    }
+
+    @Override
+    protected IGraph newGraph() {
+        return new MappedView();
+    }
+
+    /**
+     * Write a graph with weights and map it again.
+     * @param g Graph to write
+     * @param capacities Edge capacities, or null
+     * @param times Vertex times, or null
+     * @return The loaded file
+     * @throws IOException If the temporary file can't be used
+     */
+    private static GraphFile reload(final IGraph g, final HashMap<Pair<String, String>, Integer> capacities,
+            final HashMap<String, Integer> times) throws IOException {
+        File file = File.createTempFile("graph", ".bin");
+
+        try {
+            GraphFile.write(file, g, capacities, times);
+            return GraphFile.load(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that the mapped capacities and times list the same entries as the
+     * maps they were written from, and that lookups of missing keys and keys
+     * of the wrong type find nothing.
+     *
+     * @throws IOException If the temporary file can't be used
+     */
+    @Test
+    public final void testMappedWeights() throws IOException {
+        IGraph g = new ConcurrentGraph();
+        HashMap<Pair<String, String>, Integer> capacities = new HashMap<Pair<String, String>, Integer>();
+        HashMap<String, Integer> times = new HashMap<String, Integer>();
+        String[] names = {"b", "a", "\u00e9", "ab", "", "z"};
+
+        for (int i = 0; i < names.length; i += 1) {
+            g.addVertex(names[i]);
+            times.put(names[i], i * 3);
+        }
+
+        for (int i = 0; i < names.length; i += 1) {
+            for (int j = 0; j < names.length; j += 1) {
+                if ((i + j) % 3 == 0) {
+                    Pair<String, String> e = new Pair<String, String>(names[i], names[j]);
+
+                    g.addEdge(e);
+                    capacities.put(e, 10 * i + j);
+                }
+            }
+        }
+
+        GraphFile loaded = reload(g, capacities, times);
+
+        assertThat("Mapped capacities", new HashMap<Pair<String, String>, Integer>(loaded.getCapacities()),
+                equalTo(capacities));
+        assertThat("Mapped times", new HashMap<String, Integer>(loaded.getTimes()), equalTo(times));
+        assertThat("Missing vertex has no time", loaded.getTimes().get("c"), is(nullValue()));
+        assertThat("Missing edge has no capacity",
+                loaded.getCapacities().get(new Pair<String, String>("a", "b")), is(nullValue()));
+        assertThat("Key of the wrong type has no time", loaded.getTimes().containsKey(1), is(false));
+        assertThat("Missing vertex isn't listed", loaded.getGraph().getVertices().contains("c"), is(false));
+        assertThat("Missing vertex has undefined edges", loaded.getGraph().getOutgoingEdges("c"),
+                is(nullValue()));
+    }
+
+    /**
+     * Test that the mapped graph can't be changed, and that copyInto() gives
+     * a graph that can.
+     *
+     * @throws IOException If the temporary file can't be used
+     */
+    @Test
+    public final void testMappedGraphIsReadOnly() throws IOException {
+        IGraph g = new ConcurrentGraph();
+
+        g.addVertex("a");
+        g.addVertex("b");
+        g.addEdge(new Pair<String, String>("a", "b"));
+
+        GraphFile loaded = reload(g, null, null);
+
+        try {
+            loaded.getGraph().addVertex("c");
+            fail("Mapped graph should be read only");
+        } catch (UnsupportedOperationException e) {
+            assertThat("Mapped graph unchanged", loaded.getGraph().getVertices().size(), equalTo(2));
+        }
+
+        try {
+            loaded.getGraph().deleteEdge(new Pair<String, String>("a", "b"));
+            fail("Mapped graph should be read only");
+        } catch (UnsupportedOperationException e) {
+            assertThat("Mapped graph unchanged", loaded.getGraph().getOutgoingEdges("a").size(), equalTo(1));
+        }
+
+        IGraph copy = loaded.copyInto(TestRunner.newGraph());
+
+        copy.addVertex("c");
+        copy.addEdge(new Pair<String, String>("b", "c"));
+
+        assertThat("Copy can be changed", new HashSet<Pair<String, String>>(copy.getOutgoingEdges("b")),
+                equalTo(new HashSet<Pair<String, String>>(
+                        Collections.singleton(new Pair<String, String>("b", "c")))));
+        assertThat("Copy has the loaded edges", copy.getOutgoingEdges("a").contains(
+                    new Pair<String, String>("a", "b")), is(true));
+    }
+}
@@ -26,15 +26,33 @@ import edu.iastate.cs311.f13.hw6.IMaxFlowAlgorithms;
  * Test max flow algorithms.
  */
 public class TestMaxFlow {
+    /** Seed for generated graphs. */
+    private static final long SEED = 311L;
+
+    /** Number of vertices per side or layer in generated graphs. */
+    private static final int LARGE_WIDTH = 40;
+
+    /** Largest capacity in generated graphs. */
+    private static final int MAX_CAPACITY = 100;
+
     /** Class under test. */
     private IMaxFlowAlgorithms mMax;
 
+    /**
+     * Create the max flow algorithms under test. Subclasses override this to
+     * run every test against another IMaxFlowAlgorithms implementation.
+     * @return A new instance
+     */
+    protected IMaxFlowAlgorithms newMaxFlow() {
+        return TestRunner.newMaxFlow();
+    }
+
     /**
      * Instantiat the class we will test.
      */
     @Before
     public final void setUp() {
-        mMax = TestRunner.newMaxFlow();
+        mMax = newMaxFlow();
     }
 
     /**
@@ -111,6 +129,177 @@ public class TestMaxFlow {
         return result;
     }
 
+    /**
+     * Check that a flow is feasible: it only uses edges of the graph, never
+     * exceeds their capacity, and is conserved at every vertex other than the
+     * source and the sink.
+     *
+     * @param g Graph the flow was computed on
+     * @param s Source
+     * @param t Sink
+     * @param c Edge capacities, missing edges have capacity 0
+     * @param f Flow to check
+     * @return Net flow out of the source
+     */
+    public static int assertFeasibleFlow(final IGraph g, final String s, final String t,
+            final Map<Pair<String, String>, Integer> c, final Map<Pair<String, String>, Integer> f) {
+        HashMap<String, Integer> net = new HashMap<String, Integer>();
+
+        for (String v : g.getVertices()) {
+            net.put(v, 0);
+        }
+
+        for (Entry<Pair<String, String>, Integer> e : f.entrySet()) {
+            Pair<String, String> edge = e.getKey();
+            int x = e.getValue();
+            Integer capacity = c.get(edge);
+
+            assertThat("Flow should only use edges of the graph: " + edge,
+                    g.getOutgoingEdges(edge.first).contains(edge), equalTo(true));
+            assertThat("Flow should not be negative: " + edge, x >= 0, equalTo(true));
+            assertThat("Flow should not exceed capacity: " + edge,
+                    x <= (capacity == null ? 0 : capacity), equalTo(true));
+
+            net.put(edge.first, net.get(edge.first) + x);
+            net.put(edge.second, net.get(edge.second) - x);
+        }
+
+        for (String v : g.getVertices()) {
+            if (!v.equals(s) && !v.equals(t)) {
+                assertThat("Flow should be conserved at " + v, net.get(v), equalTo(0));
+            }
+        }
+
+        assertThat("Sink inflow should equal source outflow", -net.get(t), equalTo(net.get(s)));
+
+        return net.get(s);
+    }
+
+    /**
+     * Check that paths are vertex-disjoint paths from the source to the sink
+     * that only use edges of the graph.
+     *
+     * @param g Graph the paths were found in
+     * @param s Source
+     * @param t Sink
+     * @param paths Paths to check
+     */
+    public static void assertDisjointPaths(final IGraph g, final String s, final String t,
+            final Collection<List<String>> paths) {
+        HashSet<String> used = new HashSet<String>();
+
+        for (List<String> path : paths) {
+            assertThat("Path should start at the source: " + path, path.get(0), equalTo(s));
+            assertThat("Path should end at the sink: " + path, path.get(path.size() - 1), equalTo(t));
+
+            for (int i = 0; i + 1 < path.size(); i += 1) {
+                Pair<String, String> e = new Pair<String, String>(path.get(i), path.get(i + 1));
+
+                assertThat("Path should only use edges of the graph: " + e,
+                        g.getOutgoingEdges(e.first).contains(e), equalTo(true));
+            }
+
+            for (int i = 1; i + 1 < path.size(); i += 1) {
+                assertThat("Paths should not share " + path.get(i), used.add(path.get(i)), equalTo(true));
+            }
+        }
+    }
+
+    /**
+     * Check that a flow computed with vertex capacities is feasible: it only
+     * uses edges of the graph, is conserved, and the flow through every
+     * vertex stays within that vertex's capacity.
+     *
+     * @param g Graph the flow was computed on
+     * @param s Source
+     * @param t Sink
+     * @param c Vertex capacities, missing vertices are unbounded
+     * @param f Flow to check
+     * @return Net flow out of the source
+     */
+    public static int assertFeasibleVertexFlow(final IGraph g, final String s, final String t,
+            final Map<String, Integer> c, final Map<Pair<String, String>, Integer> f) {
+        HashMap<Pair<String, String>, Integer> unbounded = new HashMap<Pair<String, String>, Integer>();
+        HashMap<String, Integer> in = new HashMap<String, Integer>();
+        HashMap<String, Integer> out = new HashMap<String, Integer>();
+
+        for (String v : g.getVertices()) {
+            in.put(v, 0);
+            out.put(v, 0);
+
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                unbounded.put(e, Integer.MAX_VALUE);
+            }
+        }
+
+        int flow = assertFeasibleFlow(g, s, t, unbounded, f);
+
+        for (Entry<Pair<String, String>, Integer> e : f.entrySet()) {
+            out.put(e.getKey().first, out.get(e.getKey().first) + e.getValue());
+            in.put(e.getKey().second, in.get(e.getKey().second) + e.getValue());
+        }
+
+        for (String v : g.getVertices()) {
+            if (c.containsKey(v)) {
+                int through = Math.max(in.get(v), out.get(v));
+
+                assertThat("Flow through " + v + " should not exceed its capacity",
+                        through <= c.get(v), equalTo(true));
+            }
+        }
+
+        return flow;
+    }
+
+    /**
+     * Give every edge of a graph the same capacity.
+     * @param g Graph to read edges from
+     * @param capacity Capacity of every edge
+     * @return Capacity map
+     */
+    public static Map<Pair<String, String>, Integer> uniformCapacities(final IGraph g, final int capacity) {
+        HashMap<Pair<String, String>, Integer> c = new HashMap<Pair<String, String>, Integer>();
+
+        for (String v : g.getVertices()) {
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                c.put(e, capacity);
+            }
+        }
+
+        return c;
+    }
+
+    /**
+     * Check that a feasible flow is maximum: the cut read off its residual
+     * graph must have the same capacity as the flow.
+     *
+     * @param g Graph the flow was computed on
+     * @param s Source
+     * @param t Sink
+     * @param c Edge capacities
+     * @param f Flow to check
+     * @return Value of the flow
+     */
+    public static int assertMaximumFlow(final IGraph g, final String s, final String t,
+            final Map<Pair<String, String>, Integer> c, final Map<Pair<String, String>, Integer> f) {
+        int flow = assertFeasibleFlow(g, s, t, c, f);
+        MinCut cut = new MinCut(g, s, c, f);
+
+        assertThat("Sink should not be reachable in the residual graph",
+                cut.getSourceSide().contains(t), equalTo(false));
+        assertThat("Cut capacity should equal the flow", cut.getCapacity(), equalTo(flow));
+
+        for (Pair<String, String> e : cut.getEdges()) {
+            Integer x = f.get(e);
+            Integer capacity = c.get(e);
+
+            assertThat("Cut edge should be saturated: " + e, x == null ? 0 : x,
+                    equalTo(capacity == null ? 0 : capacity));
+        }
+
+        return flow;
+    }
+
     /**
      * Create path from argument list.
      * @param vertices to add to the path
@@ -702,4 +891,565 @@ public class TestMaxFlow {
 
         assertThat("Vertex disjoint, with a multiple cycles.", actual, containsInAnyOrder(disjointPaths));
     }
+
+    /**
+     * Test max flow on a dense bipartite network where the source side is the
+     * bottleneck.
+     */
+    @Test
+    public final void testDenseBipartiteMaxFlow() {
+        HashMap<Pair<String, String>, Integer> c = new HashMap<Pair<String, String>, Integer>();
+        IGraph g = TestRunner.newGraph();
+
+        String s = "s";
+        String t = "t";
+        int sourceC = 3;
+        int sinkC = 5;
+
+        g.addVertex(s);
+        g.addVertex(t);
+
+        for (int i = 0; i < LARGE_WIDTH; i += 1) {
+            g.addVertex("a" + i);
+            g.addVertex("b" + i);
+        }
+
+        for (int i = 0; i < LARGE_WIDTH; i += 1) {
+            Pair<String, String> in = new Pair<String, String>(s, "a" + i);
+            Pair<String, String> out = new Pair<String, String>("b" + i, t);
+
+            g.addEdge(in);
+            c.put(in, sourceC);
+
+            g.addEdge(out);
+            c.put(out, sinkC);
+
+            for (int j = 0; j < LARGE_WIDTH; j += 1) {
+                Pair<String, String> e = new Pair<String, String>("a" + i, "b" + j);
+
+                g.addEdge(e);
+                c.put(e, MAX_CAPACITY);
+            }
+        }
+
+        Map<Pair<String, String>, Integer> max = mMax.maxFlow(g, s, t, c);
+
+        int expected = LARGE_WIDTH * Math.min(sourceC, sinkC);
+
+        assertThat("Dense bipartite flow", assertFeasibleFlow(g, s, t, c, max), equalTo(expected));
+    }
+
+    /**
+     * Test max flow on a complete graph with antiparallel edges everywhere.
+     */
+    @Test
+    public final void testCompleteGraphMaxFlow() {
+        IGraph g = new GraphGenerator(SEED).complete(LARGE_WIDTH);
+        int capacity = 7;
+        Map<Pair<String, String>, Integer> c = uniformCapacities(g, capacity);
+
+        String s = GraphGenerator.vertex(0);
+        String t = GraphGenerator.vertex(LARGE_WIDTH - 1);
+
+        Map<Pair<String, String>, Integer> max = mMax.maxFlow(g, s, t, c);
+
+        int expected = (LARGE_WIDTH - 1) * capacity;
+
+        assertThat("Complete graph flow", assertFeasibleFlow(g, s, t, c, max), equalTo(expected));
+    }
+
+    /**
+     * Test that max flow on a generated layered network is feasible.
+     */
+    @Test
+    public final void testGeneratedNetworkFlowIsFeasible() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.flowNetwork(LARGE_WIDTH, LARGE_WIDTH, 4);
+        Map<Pair<String, String>, Integer> c = gen.capacities(g, MAX_CAPACITY);
+
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+
+        Map<Pair<String, String>, Integer> max = mMax.maxFlow(g, s, t, c);
+
+        int actual = assertFeasibleFlow(g, s, t, c, max);
+
+        assertThat("Generated network should have positive flow", actual > 0, equalTo(true));
+    }
+
+    /**
+     * Test that max flow doesn't change the graph or the capacity maps it is
+     * given.
+     */
+    @Test
+    public final void testMaxFlowLeavesInputsUnchanged() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.flowNetwork(LARGE_WIDTH / 4, LARGE_WIDTH / 4, 3);
+        Map<Pair<String, String>, Integer> c = gen.capacities(g, MAX_CAPACITY);
+        Map<String, Integer> vc = gen.weights(g, MAX_CAPACITY);
+
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+
+        HashMap<Pair<String, String>, Integer> expectedC = new HashMap<Pair<String, String>, Integer>(c);
+        HashMap<String, Integer> expectedVc = new HashMap<String, Integer>(vc);
+        HashMap<String, HashSet<Pair<String, String>>> expectedG = new HashMap<String, HashSet<Pair<String, String>>>();
+
+        for (String v : g.getVertices()) {
+            expectedG.put(v, new HashSet<Pair<String, String>>(g.getOutgoingEdges(v)));
+        }
+
+        mMax.maxFlow(g, s, t, c);
+        mMax.maxFlowWithVertexCapacities(g, s, t, vc);
+        mMax.maxVertexDisjointPaths(g, s, t);
+
+        assertThat("Capacities should be unchanged", c, equalTo((Map<Pair<String, String>, Integer>) expectedC));
+        assertThat("Vertex capacities should be unchanged", vc, equalTo((Map<String, Integer>) expectedVc));
+        assertThat("Vertices should be unchanged", new HashSet<String>(g.getVertices()), equalTo(expectedG.keySet()));
+
+        for (String v : g.getVertices()) {
+            assertThat("Edges should be unchanged", new HashSet<Pair<String, String>>(g.getOutgoingEdges(v)),
+                    equalTo(expectedG.get(v)));
+        }
+    }
+
+    /**
+     * Test that capacities for pairs that aren't edges of the graph are
+     * ignored.
+     */
+    @Test
+    public final void testMaxFlowIgnoresCapacitiesOfMissingEdges() {
+        HashMap<Pair<String, String>, Integer> c = new HashMap<Pair<String, String>, Integer>();
+        IGraph g = TestRunner.newGraph();
+
+        String s = "s";
+        String v1 = "v1";
+        String t = "t";
+
+        Pair<String, String> e1 = new Pair<String, String>(s, v1);
+        Pair<String, String> e2 = new Pair<String, String>(v1, t);
+        Pair<String, String> missing = new Pair<String, String>(s, t);
+
+        g.addVertex(s);
+        g.addVertex(v1);
+        g.addVertex(t);
+
+        g.addEdge(e1);
+        c.put(e1, 4);
+
+        g.addEdge(e2);
+        c.put(e2, 6);
+
+        c.put(missing, MAX_CAPACITY);
+
+        Map<Pair<String, String>, Integer> max = mMax.maxFlow(g, s, t, c);
+
+        assertThat("Only real edges carry flow", assertFeasibleFlow(g, s, t, c, max), equalTo(4));
+    }
+
+    /**
+     * Test vertex disjoint on a generated grid, which has one path per row.
+     */
+    @Test
+    public final void testVertexDisjointGrid() {
+        int rows = LARGE_WIDTH / 2;
+        IGraph g = new GraphGenerator(SEED).grid(rows, LARGE_WIDTH / 2);
+
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+
+        Collection<List<String>> actual = mMax.maxVertexDisjointPaths(g, s, t);
+
+        assertDisjointPaths(g, s, t, actual);
+        assertThat("Vertex disjoint, one path per grid row", actual.size(), equalTo(rows));
+    }
+
+    /**
+     * Test vertex disjoint on a generated fan-out, which has one path per
+     * middle vertex.
+     */
+    @Test
+    public final void testVertexDisjointFanOut() {
+        IGraph g = new GraphGenerator(SEED).fanOut(LARGE_WIDTH * 2);
+
+        String s = GraphGenerator.vertex(0);
+        String t = GraphGenerator.vertex(LARGE_WIDTH * 2 + 1);
+
+        Collection<List<String>> actual = mMax.maxVertexDisjointPaths(g, s, t);
+
+        assertDisjointPaths(g, s, t, actual);
+        assertThat("Vertex disjoint, one path per middle vertex", actual.size(), equalTo(LARGE_WIDTH * 2));
+    }
+
+    /**
+     * Test vertex capacities where the bottleneck is an inner vertex, and the
+     * vertex names look like the ones a split graph might make up.
+     */
+    @Test
+    public final void testVertexCapacitiesInnerBottleneck() {
+        HashMap<String, Integer> c = new HashMap<String, Integer>();
+        IGraph g = TestRunner.newGraph();
+
+        String s = "s";
+        String v1 = "m_in";
+        String v2 = "m_out";
+        String v3 = "m";
+        String t = "t";
+
+        g.addVertex(s);
+        c.put(s, MAX_CAPACITY);
+
+        g.addVertex(v1);
+        c.put(v1, 5);
+
+        g.addVertex(v2);
+        c.put(v2, 5);
+
+        g.addVertex(v3);
+        c.put(v3, 7);
+
+        g.addVertex(t);
+        c.put(t, MAX_CAPACITY);
+
+        g.addEdge(new Pair<String, String>(s, v1));
+        g.addEdge(new Pair<String, String>(s, v2));
+        g.addEdge(new Pair<String, String>(v1, v3));
+        g.addEdge(new Pair<String, String>(v2, v3));
+        g.addEdge(new Pair<String, String>(v3, t));
+
+        Map<Pair<String, String>, Integer> max = mMax.maxFlowWithVertexCapacities(g, s, t, c);
+
+        assertThat("Inner vertex is the bottleneck", assertFeasibleVertexFlow(g, s, t, c, max), equalTo(7));
+    }
+
+    /**
+     * Test that vertex capacity flow on a generated network is expressed over
+     * the original edges and respects every vertex capacity.
+     */
+    @Test
+    public final void testGeneratedNetworkVertexCapacities() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.flowNetwork(LARGE_WIDTH / 2, LARGE_WIDTH / 2, 4);
+        Map<String, Integer> c = gen.weights(g, MAX_CAPACITY);
+
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+
+        c.put(s, MAX_CAPACITY * LARGE_WIDTH);
+        c.put(t, MAX_CAPACITY * LARGE_WIDTH);
+
+        Map<Pair<String, String>, Integer> max = mMax.maxFlowWithVertexCapacities(g, s, t, c);
+
+        int actual = assertFeasibleVertexFlow(g, s, t, c, max);
+
+        assertThat("Generated network should have positive flow", actual > 0, equalTo(true));
+    }
+
+    /**
+     * Test many max flow queries on the same graph with different sources,
+     * sinks and capacity maps, so no state can carry over between calls.
+     */
+    @Test
+    public final void testRepeatedMaxFlowOnSameGraph() {
+        int n = LARGE_WIDTH / 2;
+        IGraph g = new GraphGenerator(SEED).complete(n);
+        Map<Pair<String, String>, Integer> c7 = uniformCapacities(g, 7);
+        Map<Pair<String, String>, Integer> c3 = uniformCapacities(g, 3);
+
+        for (int i = 0; i < n; i += 1) {
+            String s = GraphGenerator.vertex(i);
+            String t = GraphGenerator.vertex((i * 7 + 1) % n);
+
+            if (s.equals(t)) {
+                continue;
+            }
+
+            Map<Pair<String, String>, Integer> c = i % 2 == 0 ? c7 : c3;
+            int capacity = i % 2 == 0 ? 7 : 3;
+
+            Map<Pair<String, String>, Integer> max = mMax.maxFlow(g, s, t, c);
+
+            assertThat("Flow from " + s + " to " + t, assertFeasibleFlow(g, s, t, c, max),
+                    equalTo((n - 1) * capacity));
+        }
+    }
+
+    /**
+     * Test that a Gomory-Hu tree agrees with max flow for every pair of
+     * vertices of a small undirected network.
+     */
+    @Test
+    public final void testGomoryHuTreeMatchesMaxFlow() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        int n = LARGE_WIDTH / 4;
+        IGraph g = gen.randomUndirected(n, 0.3);
+        Map<Pair<String, String>, Integer> c = gen.symmetricCapacities(g, MAX_CAPACITY);
+
+        GomoryHuTree tree = new GomoryHuTree(mMax, g, c);
+
+        for (int i = 0; i < n; i += 1) {
+            for (int j = 0; j < n; j += 1) {
+                if (i != j) {
+                    String s = GraphGenerator.vertex(i);
+                    String t = GraphGenerator.vertex(j);
+
+                    int expected = assertFeasibleFlow(g, s, t, c, mMax.maxFlow(g, s, t, c));
+
+                    assertThat("Min cut between " + s + " and " + t, tree.minCut(s, t), equalTo(expected));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that max flow on generated networks is maximum, by comparing it
+     * with the cut left in its residual graph.
+     */
+    @Test
+    public final void testGeneratedNetworkFlowIsMaximum() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+
+        IGraph g = gen.flowNetwork(LARGE_WIDTH / 2, LARGE_WIDTH / 2, 3);
+        Map<Pair<String, String>, Integer> c = gen.capacities(g, MAX_CAPACITY);
+
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+
+        int flow = assertMaximumFlow(g, s, t, c, mMax.maxFlow(g, s, t, c));
+
+        assertThat("Layered network should have positive flow", flow > 0, equalTo(true));
+
+        g = gen.grid(LARGE_WIDTH / 4, LARGE_WIDTH / 4);
+        c = gen.capacities(g, MAX_CAPACITY);
+
+        flow = assertMaximumFlow(g, s, t, c, mMax.maxFlow(g, s, t, c));
+
+        assertThat("Grid should have positive flow", flow > 0, equalTo(true));
+    }
+
+    /**
+     * Test max flow again after changing capacities in the same map, so a
+     * result cached from the first call can't be reused by mistake.
+     */
+    @Test
+    public final void testMaxFlowAfterCapacityChanges() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.flowNetwork(LARGE_WIDTH / 4, LARGE_WIDTH / 4, 3);
+        Map<Pair<String, String>, Integer> c = gen.capacities(g, MAX_CAPACITY);
+
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+
+        Map<Pair<String, String>, Integer> max = mMax.maxFlow(g, s, t, c);
+        int flow = assertMaximumFlow(g, s, t, c, max);
+
+        for (Pair<String, String> e : new MinCut(g, s, c, max).getEdges()) {
+            c.put(e, c.get(e) + 1);
+        }
+
+        int increased = assertMaximumFlow(g, s, t, c, mMax.maxFlow(g, s, t, c));
+
+        assertThat("Raising capacities can't lower the flow", increased >= flow, equalTo(true));
+
+        for (Pair<String, String> e : g.getOutgoingEdges(s)) {
+            c.put(e, 1);
+        }
+
+        int decreased = assertMaximumFlow(g, s, t, c, mMax.maxFlow(g, s, t, c));
+
+        assertThat("Source edges of capacity 1 limit the flow",
+                decreased <= g.getOutgoingEdges(s).size(), equalTo(true));
+    }
+
+    /**
+     * Test min cost flow on a network where the cheapest flow has to send
+     * flow back along an edge with negative cost.
+     */
+    @Test
+    public final void testMinCostFlowSmall() {
+        HashMap<Pair<String, String>, Integer> c = new HashMap<Pair<String, String>, Integer>();
+        HashMap<Pair<String, String>, Integer> cost = new HashMap<Pair<String, String>, Integer>();
+        IGraph g = TestRunner.newGraph();
+
+        String s = "s";
+        String v1 = "v1";
+        String v2 = "v2";
+        String t = "t";
+
+        Pair<String, String> e1 = new Pair<String, String>(s, v1);
+        Pair<String, String> e2 = new Pair<String, String>(s, v2);
+        Pair<String, String> e3 = new Pair<String, String>(v1, v2);
+        Pair<String, String> e4 = new Pair<String, String>(v1, t);
+        Pair<String, String> e5 = new Pair<String, String>(v2, t);
+
+        g.addVertex(s);
+        g.addVertex(v1);
+        g.addVertex(v2);
+        g.addVertex(t);
+
+        g.addEdge(e1);
+        c.put(e1, 1);
+        cost.put(e1, 1);
+
+        g.addEdge(e2);
+        c.put(e2, 1);
+        cost.put(e2, 5);
+
+        g.addEdge(e3);
+        c.put(e3, 1);
+        cost.put(e3, -2);
+
+        g.addEdge(e4);
+        c.put(e4, 1);
+        cost.put(e4, 5);
+
+        g.addEdge(e5);
+        c.put(e5, 1);
+        cost.put(e5, 1);
+
+        MinCostFlow min = new MinCostFlow(g, s, t, c, cost);
+
+        assertThat("Min cost flow value", min.getValue(), equalTo(2));
+        assertThat("Min cost flow cost", min.getCost(), equalTo(12L));
+        assertThat("Min cost flow is feasible", assertFeasibleFlow(g, s, t, c, min.getFlow()), equalTo(2));
+    }
+
+    /**
+     * Test min cost flow on a network with several maximum flows of
+     * different costs. Every unit goes s -> x and then along one of three
+     * routes to t: a costs 2 per unit but takes only 1 unit, c costs 3 per
+     * unit over three hops, and b costs 6 per unit. The cheapest maximum flow
+     * sends one unit along a and one along c for a cost of 5, while
+     * augmenting along the fewest hops would use b.
+     */
+    @Test
+    public final void testMinCostFlowPicksCheapestMaxFlow() {
+        HashMap<Pair<String, String>, Integer> c = new HashMap<Pair<String, String>, Integer>();
+        HashMap<Pair<String, String>, Integer> cost = new HashMap<Pair<String, String>, Integer>();
+        IGraph g = TestRunner.newGraph();
+        String[][] edges = {
+            {"s", "x", "2", "0"},
+            {"x", "a", "1", "1"},
+            {"a", "t", "1", "1"},
+            {"x", "b", "2", "3"},
+            {"b", "t", "2", "3"},
+            {"x", "c1", "2", "1"},
+            {"c1", "c2", "2", "1"},
+            {"c2", "t", "2", "1"},
+        };
+
+        for (String v : new String[] {"s", "x", "a", "b", "c1", "c2", "t"}) {
+            g.addVertex(v);
+        }
+
+        for (String[] edge : edges) {
+            Pair<String, String> e = new Pair<String, String>(edge[0], edge[1]);
+
+            g.addEdge(e);
+            c.put(e, Integer.parseInt(edge[2]));
+            cost.put(e, Integer.parseInt(edge[3]));
+        }
+
+        MinCostFlow min = new MinCostFlow(g, "s", "t", c, cost);
+        Map<Pair<String, String>, Integer> flow = min.getFlow();
+        Integer viaB = flow.get(new Pair<String, String>("x", "b"));
+
+        assertThat("Min cost flow value", min.getValue(), equalTo(2));
+        assertThat("Min cost flow cost", min.getCost(), equalTo(5L));
+        assertThat("One unit through a", flow.get(new Pair<String, String>("x", "a")), equalTo(1));
+        assertThat("One unit through c", flow.get(new Pair<String, String>("x", "c1")), equalTo(1));
+        assertThat("Nothing through b", viaB == null || viaB == 0, equalTo(true));
+        assertNoNegativeResidualCycle(g, c, cost, flow);
+    }
+
+    /**
+     * Check that a flow has minimum cost for its value: the residual graph
+     * has no negative cost cycle, found with Bellman-Ford from every vertex
+     * at once.
+     *
+     * @param g Flow network
+     * @param c Edge capacities
+     * @param cost Per-unit edge costs
+     * @param flow Flow to check
+     */
+    private static void assertNoNegativeResidualCycle(final IGraph g,
+            final Map<Pair<String, String>, Integer> c, final Map<Pair<String, String>, Integer> cost,
+            final Map<Pair<String, String>, Integer> flow) {
+        List<String> tails = new ArrayList<String>();
+        List<String> heads = new ArrayList<String>();
+        List<Integer> costs = new ArrayList<Integer>();
+
+        for (String v : g.getVertices()) {
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                int capacity = c.containsKey(e) ? c.get(e) : 0;
+                int f = flow.containsKey(e) ? flow.get(e) : 0;
+
+                if (f < capacity) {
+                    tails.add(e.first);
+                    heads.add(e.second);
+                    costs.add(cost.get(e));
+                }
+
+                if (f > 0) {
+                    tails.add(e.second);
+                    heads.add(e.first);
+                    costs.add(-cost.get(e));
+                }
+            }
+        }
+
+        HashMap<String, Long> dist = new HashMap<String, Long>();
+
+        for (String v : g.getVertices()) {
+            dist.put(v, 0L);
+        }
+
+        boolean relaxed = true;
+
+        for (int round = 0; round <= g.getVertices().size() && relaxed; round += 1) {
+            relaxed = false;
+
+            for (int k = 0; k < tails.size(); k += 1) {
+                long next = dist.get(tails.get(k)) + costs.get(k);
+
+                if (next < dist.get(heads.get(k))) {
+                    dist.put(heads.get(k), next);
+                    relaxed = true;
+                }
+            }
+        }
+
+        assertThat("Residual graph should have no negative cost cycle", relaxed, equalTo(false));
+    }
+
+    /**
+     * Test that min cost flow on a generated network finds the same flow
+     * value as max flow, and reports the cost of the flow it returns.
+     */
+    @Test
+    public final void testMinCostFlowMatchesMaxFlow() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.flowNetwork(LARGE_WIDTH / 2, LARGE_WIDTH / 2, 3);
+        Map<Pair<String, String>, Integer> c = gen.capacities(g, MAX_CAPACITY);
+        Map<Pair<String, String>, Integer> cost = gen.capacities(g, MAX_CAPACITY);
+
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+
+        MinCostFlow min = new MinCostFlow(g, s, t, c, cost);
+
+        int expected = assertMaximumFlow(g, s, t, c, mMax.maxFlow(g, s, t, c));
+
+        assertThat("Min cost flow has the max flow value", min.getValue(), equalTo(expected));
+        assertThat("Min cost flow is maximum", assertMaximumFlow(g, s, t, c, min.getFlow()), equalTo(expected));
+
+        long total = 0;
+
+        for (Entry<Pair<String, String>, Integer> e : min.getFlow().entrySet()) {
+            total += (long) e.getValue() * cost.get(e.getKey());
+        }
+
+        assertThat("Reported cost matches the flow", min.getCost(), equalTo(total));
+        assertNoNegativeResidualCycle(g, c, cost, min.getFlow());
+    }
 }
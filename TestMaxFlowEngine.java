@@ -0,0 +1,400 @@
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+import edu.iastate.cs311.f13.hw6.IMaxFlowAlgorithms;
+
+/**
+ * Test MaxFlowEngine: every test from TestMaxFlow, plus tests that each of
+ * its algorithms finds a maximum flow, and of the EdgeIndex arrays it
+ * takes and returns.
+ */
+public class TestMaxFlowEngine extends TestMaxFlow {
+    /** Seed for generated graphs. */
+    private static final long SEED = 311L;
+
+    /** Number of vertices per side or layer in generated graphs. */
+    private static final int WIDTH = 30;
+
+    /** Largest capacity in generated graphs. */
+    private static final int MAX_CAPACITY = 100;
+
+    @Override
+    protected IMaxFlowAlgorithms newMaxFlow() {
+        return new MaxFlowEngine();
+    }
+
+    /**
+     * Find the max flow with every algorithm and check that each is maximum
+     * and that they agree.
+     * @param g Graph
+     * @param s Source
+     * @param t Sink
+     * @param c Capacities
+     * @return Value of the flow
+     */
+    private static int assertEnginesAgree(final IGraph g, final String s, final String t,
+            final Map<Pair<String, String>, Integer> c) {
+        MaxFlowEngine max = new MaxFlowEngine();
+        List<Integer> values = new ArrayList<Integer>();
+
+        for (MaxFlowEngine.Engine engine : MaxFlowEngine.Engine.values()) {
+            values.add(assertMaximumFlow(g, s, t, c, max.maxFlow(g, s, t, c, engine)));
+        }
+
+        for (int value : values) {
+            assertThat("Every engine finds the same value", value, equalTo(values.get(0)));
+        }
+
+        return values.get(0);
+    }
+
+    /**
+     * Test each algorithm on generated layered networks, grids, and dense
+     * random graphs with antiparallel edges and cycles.
+     */
+    @Test
+    public final void testEnginesFindMaximumFlow() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+
+        IGraph g = gen.flowNetwork(WIDTH, WIDTH, 4);
+
+        assertThat("Layered network", assertEnginesAgree(g, s, t, gen.capacities(g, MAX_CAPACITY)) > 0,
+                equalTo(true));
+
+        g = gen.grid(WIDTH / 2, WIDTH / 2);
+
+        assertThat("Grid", assertEnginesAgree(g, s, t, gen.capacities(g, MAX_CAPACITY)) > 0, equalTo(true));
+
+        g = gen.randomUndirected(WIDTH * 4, 0.2);
+
+        assertEnginesAgree(g, GraphGenerator.vertex(0), GraphGenerator.vertex(1),
+                gen.symmetricCapacities(g, MAX_CAPACITY));
+
+        g = gen.complete(WIDTH);
+
+        assertThat("Complete graph", assertEnginesAgree(g, GraphGenerator.vertex(0), GraphGenerator.vertex(1),
+                uniformCapacities(g, 1)), equalTo(WIDTH - 1));
+    }
+
+    /**
+     * Test that AUTO picks push-relabel only for dense networks.
+     */
+    @Test
+    public final void testAutoPicksByDensity() {
+        int nodes = 1000;
+
+        assertThat("Sparse network", MaxFlowEngine.choose(nodes, nodes * 2),
+                equalTo(MaxFlowEngine.Engine.DINIC));
+        assertThat("Dense network", MaxFlowEngine.choose(nodes, nodes * MaxFlowEngine.DENSE_DEGREE),
+                equalTo(MaxFlowEngine.Engine.PUSH_RELABEL));
+    }
+
+    /**
+     * Test the residual network directly: Dinic stops at its limit and picks
+     * up from there, both algorithms add to a flow already there, and reset()
+     * removes all of it.
+     */
+    @Test
+    public final void testResidualNetworkResumesAndResets() {
+        int[] tails = {0, 0, 1, 2, 1};
+        int[] heads = {1, 2, 3, 3, 2};
+        int[] capacities = {4, 3, 2, 5, 3};
+        ResidualNetwork network = new ResidualNetwork(4, tails, heads, capacities);
+
+        assertThat("Dinic stops at the limit", network.dinic(0, 3, 2), equalTo(2));
+        assertThat("Push-relabel adds the rest", network.pushRelabel(0, 3), equalTo(5));
+        assertThat("Nothing is left for Dinic", network.dinic(0, 3, Integer.MAX_VALUE), equalTo(0));
+
+        for (int k = 0; k < tails.length; k += 1) {
+            assertThat("Flow within capacity", network.getFlow(k) <= network.getCapacity(k), equalTo(true));
+        }
+
+        network.reset();
+
+        assertThat("Reset removes the flow", network.getFlow(0), equalTo(0));
+        assertThat("Same value after reset", network.dinic(0, 3, Integer.MAX_VALUE), equalTo(7));
+        assertThat("Copy starts with no flow", network.copy().pushRelabel(0, 3), equalTo(7));
+    }
+
+    /**
+     * Test that EdgeIndex numbers every edge once, with each vertex's edges
+     * together, and that the Map adapters drop zeros and missing edges and
+     * otherwise give back what they were given.
+     */
+    @Test
+    public final void testEdgeIndexRoundTrip() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.flowNetwork(WIDTH / 3, WIDTH / 3, 3);
+        Map<Pair<String, String>, Integer> c = gen.capacities(g, MAX_CAPACITY);
+        EdgeIndex edges = new EdgeIndex(g);
+        IndexedGraph graph = edges.getGraph();
+
+        assertThat("Every edge has an id", edges.size(), equalTo(GraphGenerator.edgeCount(g)));
+
+        for (int e = 0; e < edges.size(); e += 1) {
+            String v = graph.getVertex(edges.getTail(e));
+            String u = graph.getVertex(edges.getHead(e));
+
+            assertThat("Edge of the graph", g.getOutgoingEdges(v).contains(new Pair<String, String>(v, u)),
+                    equalTo(true));
+            assertThat("Id found again by name", edges.getEdge(v, u), equalTo(e));
+
+            if (e > 0) {
+                assertThat("Edges of a tail are together, tails in id order",
+                        edges.getTail(e) >= edges.getTail(e - 1), equalTo(true));
+            }
+        }
+
+        assertThat("Missing edge has no id", edges.getEdge(GraphGenerator.SINK, GraphGenerator.SOURCE),
+                equalTo(-1));
+        assertThat("Missing vertex has no edges", edges.getEdge("missing", GraphGenerator.SINK), equalTo(-1));
+
+        HashMap<Pair<String, String>, Integer> withExtras = new HashMap<Pair<String, String>, Integer>(c);
+        Pair<String, String> zero = g.getOutgoingEdges(GraphGenerator.SOURCE).iterator().next();
+
+        withExtras.put(new Pair<String, String>(GraphGenerator.SINK, GraphGenerator.SOURCE), 5);
+        withExtras.put(zero, 0);
+
+        HashMap<Pair<String, String>, Integer> expected = new HashMap<Pair<String, String>, Integer>(c);
+
+        expected.remove(zero);
+
+        int[] array = edges.toArray(withExtras);
+
+        assertThat("Zero edge reads as 0", array[edges.getEdge(zero.first, zero.second)], equalTo(0));
+        assertThat("Round trip keeps the edges with values", edges.toMap(array),
+                equalTo((Map<Pair<String, String>, Integer>) expected));
+
+        Map<String, Integer> weights = new HashMap<String, Integer>();
+
+        weights.put(GraphGenerator.SOURCE, 3);
+
+        int[] vertices = edges.toVertexArray(weights, -1);
+
+        assertThat("Vertex value read", vertices[graph.getIndex(GraphGenerator.SOURCE)], equalTo(3));
+        assertThat("Missing vertex gets the default", vertices[graph.getIndex(GraphGenerator.SINK)],
+                equalTo(-1));
+    }
+
+    /**
+     * Test the int array maxFlow against the Map one, for every algorithm.
+     */
+    @Test
+    public final void testIntArrayMaxFlow() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.flowNetwork(WIDTH, WIDTH, 4);
+        Map<Pair<String, String>, Integer> c = gen.capacities(g, MAX_CAPACITY);
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+        EdgeIndex edges = new EdgeIndex(g);
+        int[] capacities = edges.toArray(c);
+        int source = edges.getGraph().getIndex(s);
+        int sink = edges.getGraph().getIndex(t);
+        MaxFlowEngine max = new MaxFlowEngine();
+        int expected = assertMaximumFlow(g, s, t, c, max.maxFlow(g, s, t, c));
+
+        for (MaxFlowEngine.Engine engine : MaxFlowEngine.Engine.values()) {
+            int[] flow = max.maxFlow(edges, source, sink, capacities, engine);
+
+            assertThat("Same value over edge ids", assertMaximumFlow(g, s, t, c, edges.toMap(flow)),
+                    equalTo(expected));
+        }
+
+        assertThat("Capacities are left alone", capacities, equalTo(edges.toArray(c)));
+    }
+
+    /**
+     * Test that the split network finds as many disjoint paths as
+     * TestRunner.newMaxFlow() on generated graphs, including one where the
+     * source and sink are joined directly.
+     */
+    @Test
+    public final void testDisjointPathsMatchReference() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IMaxFlowAlgorithms reference = TestRunner.newMaxFlow();
+        MaxFlowEngine max = new MaxFlowEngine();
+        List<IGraph> graphs = new ArrayList<IGraph>();
+
+        graphs.add(gen.flowNetwork(WIDTH / 2, WIDTH / 2, 3));
+        graphs.add(gen.grid(WIDTH / 3, WIDTH / 3));
+
+        IGraph direct = gen.flowNetwork(WIDTH / 3, WIDTH / 3, 2);
+
+        direct.addEdge(new Pair<String, String>(GraphGenerator.SOURCE, GraphGenerator.SINK));
+        graphs.add(direct);
+
+        for (IGraph g : graphs) {
+            String s = GraphGenerator.SOURCE;
+            String t = GraphGenerator.SINK;
+            Collection<List<String>> paths = max.maxVertexDisjointPaths(g, s, t);
+
+            assertDisjointPaths(g, s, t, paths);
+            assertThat("Same number of paths as the reference", paths.size(),
+                    equalTo(reference.maxVertexDisjointPaths(g, s, t).size()));
+        }
+
+        assertThat("Direct edge is its own path",
+                max.maxVertexDisjointPaths(direct, GraphGenerator.SOURCE, GraphGenerator.SINK).contains(
+                        Arrays.asList(GraphGenerator.SOURCE, GraphGenerator.SINK)), equalTo(true));
+    }
+
+    /**
+     * Test vertex capacities on the split network against
+     * TestRunner.newMaxFlow() for every algorithm, with the source and the
+     * sink limited too and some vertices left unbounded.
+     */
+    @Test
+    public final void testVertexCapacitiesMatchReference() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.flowNetwork(WIDTH / 2, WIDTH / 2, 4);
+        Map<String, Integer> c = gen.weights(g, MAX_CAPACITY);
+        String s = GraphGenerator.SOURCE;
+        String t = GraphGenerator.SINK;
+        EdgeIndex edges = new EdgeIndex(g);
+        IndexedGraph graph = edges.getGraph();
+
+        c.put(s, MAX_CAPACITY * WIDTH / 4);
+        c.remove(GraphGenerator.vertex(1));
+        c.remove(GraphGenerator.vertex(2));
+
+        int expected = assertFeasibleVertexFlow(g, s, t, c,
+                TestRunner.newMaxFlow().maxFlowWithVertexCapacities(g, s, t, c));
+        int[] capacities = edges.toVertexArray(c, MaxFlowEngine.UNBOUNDED);
+
+        for (MaxFlowEngine.Engine engine : MaxFlowEngine.Engine.values()) {
+            int[] flow = new MaxFlowEngine().maxFlowWithVertexCapacities(edges, graph.getIndex(s),
+                    graph.getIndex(t), capacities, engine);
+
+            assertThat("Same value as the reference", assertFeasibleVertexFlow(g, s, t, c, edges.toMap(flow)),
+                    equalTo(expected));
+        }
+    }
+
+    /**
+     * Test a batch of queries on one network, on one thread and on a pool,
+     * against maxFlow of every pair: layered source to sink, pairs of inner
+     * vertices either way round, a vertex to itself, and a missing vertex.
+     */
+    @Test
+    public final void testBatchMatchesMaxFlow() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.flowNetwork(WIDTH / 2, WIDTH / 2, 4);
+        Map<Pair<String, String>, Integer> c = gen.capacities(g, MAX_CAPACITY);
+        MaxFlowEngine max = new MaxFlowEngine();
+        List<Pair<String, String>> pairs = new ArrayList<Pair<String, String>>();
+
+        pairs.add(new Pair<String, String>(GraphGenerator.SOURCE, GraphGenerator.SINK));
+
+        for (int i = 0; i < WIDTH; i += 1) {
+            pairs.add(new Pair<String, String>(GraphGenerator.vertex(i), GraphGenerator.vertex(WIDTH * 2 - i)));
+        }
+
+        pairs.add(new Pair<String, String>(GraphGenerator.SINK, GraphGenerator.SINK));
+        pairs.add(new Pair<String, String>("missing", GraphGenerator.SINK));
+
+        for (MaxFlowEngine.Engine engine : MaxFlowEngine.Engine.values()) {
+            MaxFlowBatch batch = new MaxFlowBatch(g, c, engine);
+
+            for (int threads = 1; threads <= 3; threads += 2) {
+                List<Map<Pair<String, String>, Integer>> flows = batch.maxFlows(pairs, threads);
+                int[] values = batch.maxFlowValues(pairs, threads);
+
+                assertThat("One flow per pair", flows.size(), equalTo(pairs.size()));
+
+                for (int i = 0; i < pairs.size(); i += 1) {
+                    String s = pairs.get(i).first;
+                    String t = pairs.get(i).second;
+
+                    if (!g.getVertices().contains(s) || s.equals(t)) {
+                        assertThat("No flow without two ends", flows.get(i).isEmpty(), equalTo(true));
+                        assertThat("No value without two ends", values[i], equalTo(0));
+                        continue;
+                    }
+
+                    int expected = assertMaximumFlow(g, s, t, c, max.maxFlow(g, s, t, c));
+
+                    assertThat("Same value as maxFlow", assertMaximumFlow(g, s, t, c, flows.get(i)),
+                            equalTo(expected));
+                    assertThat("Values match the flows", values[i], equalTo(expected));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test a session after capacity increases and decreases, on edges with
+     * flow and without, including edges out of the source and into the
+     * sink, with the flow checked as a maximum flow after every change.
+     */
+    @Test
+    public final void testSessionAfterCapacityChanges() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        Random random = new Random(SEED);
+        List<IGraph> graphs = new ArrayList<IGraph>();
+
+        graphs.add(gen.flowNetwork(WIDTH / 2, WIDTH / 2, 4));
+        graphs.add(gen.randomUndirected(WIDTH, 0.2));
+
+        for (IGraph g : graphs) {
+            String s = GraphGenerator.SOURCE;
+            String t = GraphGenerator.SINK;
+            Map<Pair<String, String>, Integer> c = gen.capacities(g, MAX_CAPACITY);
+
+            if (!g.getVertices().contains(s)) {
+                s = GraphGenerator.vertex(0);
+                t = GraphGenerator.vertex(1);
+                c = gen.symmetricCapacities(g, MAX_CAPACITY);
+            }
+
+            MaxFlowSession session = new MaxFlowSession(g, s, t, c);
+            EdgeIndex edges = session.getEdges();
+            IndexedGraph graph = edges.getGraph();
+
+            assertThat("Starts at the max flow", assertMaximumFlow(g, s, t, c, session.getFlow()),
+                    equalTo(session.getValue()));
+
+            for (int i = 0; i < WIDTH * 2; i += 1) {
+                int tail = i % 3 == 0 ? graph.getIndex(s) : -1;
+                int head = i % 5 == 0 ? graph.getIndex(t) : -1;
+                int e = random.nextInt(edges.size());
+
+                for (int k = 0; k < edges.size(); k += 1) {
+                    if ((tail < 0 || edges.getTail(e) == tail) && (head < 0 || edges.getHead(e) == head)) {
+                        break;
+                    }
+
+                    e = (e + 1) % edges.size();
+                }
+
+                Pair<String, String> edge = new Pair<String, String>(graph.getVertex(edges.getTail(e)),
+                        graph.getVertex(edges.getHead(e)));
+                int flow = session.getFlow(e);
+                int capacity = i % 2 == 0 ? random.nextInt(flow + 1) : flow + random.nextInt(MAX_CAPACITY);
+
+                c.put(edge, capacity);
+
+                int value = session.setCapacity(edge.first, edge.second, capacity);
+
+                assertThat(i % 2 == 0 ? "Max flow after a decrease" : "Max flow after an increase",
+                        assertMaximumFlow(g, s, t, c, session.getFlow()), equalTo(value));
+                assertThat("Same value as a fresh max flow", value,
+                        equalTo(assertMaximumFlow(g, s, t, c, new MaxFlowEngine().maxFlow(g, s, t, c))));
+            }
+        }
+    }
+}
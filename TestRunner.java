@@ -6,7 +6,11 @@ import edu.iastate.cs311.f13.hw6.*;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
     TestGraph.class,
+    TestConcurrentGraph.class,
+    TestCompactGraph.class,
+    TestGraphFile.class,
     TestMaxFlow.class,
+    TestMaxFlowEngine.class,
     TestTopologicalSort.class,
 })
 
@@ -1,6 +1,7 @@
 import org.junit.Test;
 
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import org.hamcrest.Matcher;
 import org.hamcrest.core.IsEqual;
@@ -11,8 +12,14 @@ import static org.hamcrest.Matchers.empty;
 
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import edu.iastate.cs311.f13.hw6.IGraph;
 import edu.iastate.cs311.f13.hw6.IGraph.Pair;
@@ -22,6 +29,145 @@ import edu.iastate.cs311.f13.hw6.ITopologicalSortAlgorithms;
  * Test topological algorithms.
  */
 public class TestTopologicalSort {
+    /** Seed for generated graphs. */
+    private static final long SEED = 311L;
+
+    /** Number of vertices in generated graphs. */
+    private static final int LARGE_VERTICES = 2000;
+
+    /** Number of vertices in the longest generated chains. */
+    private static final int HUGE_VERTICES = 100000;
+
+    /** Largest task time in generated graphs. */
+    private static final int MAX_TIME = 100;
+
+    /**
+     * Check that a list is a topological order of a graph: every vertex
+     * appears exactly once, and every edge goes forward in the list.
+     *
+     * @param g Graph that was sorted
+     * @param order Result of topologicalSort
+     */
+    public static void assertTopologicalOrder(final IGraph g, final List<String> order) {
+        HashMap<String, Integer> position = new HashMap<String, Integer>();
+
+        for (String v : order) {
+            assertThat("Vertex should appear only once: " + v, position.containsKey(v), is(false));
+            position.put(v, position.size());
+        }
+
+        if (position.size() != g.getVertices().size()) {
+            String cycle = "";
+
+            try {
+                new IndexedGraph(g).topologicalOrder();
+            } catch (CycleException e) {
+                cycle = ", the graph has a cycle " + e.getCycle();
+            }
+
+            assertThat("Every vertex should be in the order" + cycle,
+                    position.size(), equalTo(g.getVertices().size()));
+        }
+
+        for (String v : g.getVertices()) {
+            assertThat("Every vertex should be in the order: " + v, position.containsKey(v), is(true));
+
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                assertThat("Edge should go forward: " + e.first + " -> " + e.second,
+                        position.get(e.first) < position.get(e.second), is(true));
+            }
+        }
+    }
+
+    /**
+     * Check that a schedule on a fixed number of workers respects every
+     * dependency and never runs two tasks on one worker at once.
+     *
+     * @param g DAG of tasks
+     * @param times Time of every task
+     * @param schedule Schedule to check
+     * @param workers Number of workers
+     */
+    public static void assertValidSchedule(final IGraph g, final Map<String, Integer> times,
+            final ListScheduler schedule, final int workers) {
+        HashMap<Integer, List<String>> byWorker = new HashMap<Integer, List<String>>();
+        int makespan = 0;
+
+        for (String v : g.getVertices()) {
+            int w = schedule.getWorker(v);
+            int finish = schedule.getStart(v) + times.get(v);
+
+            assertThat("Worker should exist: " + v, w >= 0 && w < workers, is(true));
+
+            if (!byWorker.containsKey(w)) {
+                byWorker.put(w, new ArrayList<String>());
+            }
+
+            byWorker.get(w).add(v);
+            makespan = Math.max(makespan, finish);
+
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                assertThat("Task should start after its dependency: " + e,
+                        schedule.getStart(e.second) >= finish, is(true));
+            }
+        }
+
+        assertThat("Makespan should be the last finish time", schedule.getMakespan(), equalTo(makespan));
+
+        for (List<String> tasks : byWorker.values()) {
+            int[][] spans = new int[tasks.size()][];
+
+            for (int i = 0; i < spans.length; i += 1) {
+                int start = schedule.getStart(tasks.get(i));
+                spans[i] = new int[] {start, start + times.get(tasks.get(i))};
+            }
+
+            Arrays.sort(spans, new Comparator<int[]>() {
+                public int compare(final int[] a, final int[] b) {
+                    if (a[0] != b[0]) {
+                        return a[0] < b[0] ? -1 : 1;
+                    }
+
+                    return a[1] < b[1] ? -1 : (a[1] == b[1] ? 0 : 1);
+                }
+            });
+
+            for (int i = 0; i + 1 < spans.length; i += 1) {
+                assertThat("Tasks on one worker should not overlap", spans[i][1] <= spans[i + 1][0], is(true));
+            }
+        }
+    }
+
+    /**
+     * Length of the longest weighted path through a DAG made by
+     * GraphGenerator. Generated DAGs only have edges from lower to higher
+     * vertex indices, so the index order is a topological order and the
+     * expected answer doesn't depend on the sort under test.
+     *
+     * @param g Generated DAG
+     * @param times Time of each vertex
+     * @return Expected minScheduleLength
+     */
+    public static int generatedScheduleLength(final IGraph g, final Map<String, Integer> times) {
+        int n = g.getVertices().size();
+        int[] start = new int[n];
+        int result = 0;
+
+        for (int i = 0; i < n; i += 1) {
+            String v = GraphGenerator.vertex(i);
+            int finish = start[i] + times.get(v);
+
+            result = Math.max(result, finish);
+
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                int j = GraphGenerator.index(e.second);
+                start[j] = Math.max(start[j], finish);
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Test toposort for empty graph.
      */
@@ -337,6 +483,829 @@ public class TestTopologicalSort {
         assertThat("Extreme topo sort test", actual, anyOf(expected));
     }
 
+    /**
+     * Test toposort on large generated DAGs of every shape.
+     */
+    @Test
+    public final void testTopoGeneratedDags() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+        IGraph chain = gen.chain(LARGE_VERTICES);
+        assertTopologicalOrder(chain, topo.topologicalSort(chain));
+
+        IGraph fan = gen.fanOut(LARGE_VERTICES);
+        assertTopologicalOrder(fan, topo.topologicalSort(fan));
+
+        IGraph random = gen.randomDag(LARGE_VERTICES, 4.0 / LARGE_VERTICES);
+        assertTopologicalOrder(random, topo.topologicalSort(random));
+
+        IGraph layered = gen.layeredDag(LARGE_VERTICES / 50, 50, 4);
+        assertTopologicalOrder(layered, topo.topologicalSort(layered));
+    }
+
+    /**
+     * Test toposort of a very long chain whose vertices were added in reverse,
+     * which overflows the stack of a recursive sort, with both the sort under
+     * test and IndexedGraph's.
+     */
+    @Test
+    public final void testTopoHugeReversedChain() {
+        IGraph g = TestRunner.newGraph();
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+        for (int i = HUGE_VERTICES - 1; i >= 0; i -= 1) {
+            g.addVertex(GraphGenerator.vertex(i));
+        }
+
+        for (int i = 0; i + 1 < HUGE_VERTICES; i += 1) {
+            g.addEdge(new Pair<String, String>(GraphGenerator.vertex(i), GraphGenerator.vertex(i + 1)));
+        }
+
+        for (List<String> actual : Arrays.asList(topo.topologicalSort(g), new IndexedGraph(g).topologicalSort())) {
+            assertThat("Every vertex should be in the order", actual.size(), equalTo(HUGE_VERTICES));
+
+            for (int i = 0; i < HUGE_VERTICES; i += 1) {
+                assertThat("Chain should be sorted in order", actual.get(i), equalTo(GraphGenerator.vertex(i)));
+            }
+        }
+    }
+
+    /**
+     * Test scheduling on a very long chain.
+     */
+    @Test
+    public final void testSchedulingHugeChain() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+        IGraph g = gen.chain(HUGE_VERTICES);
+        Map<String, Integer> times = gen.weights(g, MAX_TIME);
+
+        assertThat("Minimum schedule of huge chain", topo.minScheduleLength(g, times),
+                equalTo(generatedScheduleLength(g, times)));
+    }
+
+    /**
+     * Test sorting and scheduling one frozen graph from several threads at
+     * once. Every thread gets its own ITopologicalSortAlgorithms instance, so
+     * only the graph is shared.
+     *
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @Test
+    public final void testFrozenGraphSharedBetweenThreads() throws InterruptedException {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph dag = gen.randomDag(LARGE_VERTICES, 4.0 / LARGE_VERTICES);
+        final Map<String, Integer> times = gen.weights(dag, MAX_TIME);
+        final FrozenGraph frozen = FrozenGraph.freeze(dag);
+        final int threads = 4;
+        final List<List<String>> orders = Collections.synchronizedList(new ArrayList<List<String>>());
+        final List<Integer> lengths = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> running = new ArrayList<Thread>();
+
+        for (int t = 0; t < threads; t += 1) {
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+                        orders.add(topo.topologicalSort(frozen));
+                        lengths.add(topo.minScheduleLength(frozen, times));
+                        lengths.add(new ScheduleReport(frozen, times).getMakespan());
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+
+            thread.start();
+            running.add(thread);
+        }
+
+        for (Thread thread : running) {
+            thread.join();
+        }
+
+        int expected = generatedScheduleLength(dag, times);
+
+        assertThat("Threads shouldn't throw: " + errors, errors, is(empty()));
+        assertThat("Every thread should sort", orders.size(), equalTo(threads));
+
+        for (List<String> order : orders) {
+            assertTopologicalOrder(dag, order);
+        }
+
+        for (int length : lengths) {
+            assertThat("Schedule of frozen graph", length, equalTo(expected));
+        }
+    }
+
+    /**
+     * Test that the cycle a failed sort reports, which failure messages
+     * name, is a real cycle of the graph, and that the schedulers pass it
+     * on.
+     */
+    @Test
+    public final void testCycleWitness() {
+        int n = LARGE_VERTICES / 20;
+        IGraph g = new GraphGenerator(SEED).chain(n);
+        HashMap<String, Integer> times = new HashMap<String, Integer>();
+
+        for (String v : g.getVertices()) {
+            times.put(v, 1);
+        }
+
+        assertThat("A chain sorts", new IndexedGraph(g).topologicalOrder().length, equalTo(n));
+
+        g.addEdge(new Pair<String, String>(GraphGenerator.vertex(n - 1), GraphGenerator.vertex(n / 2)));
+
+        List<String> cycle = null;
+
+        try {
+            new IndexedGraph(g).topologicalOrder();
+            fail("A graph with a cycle should not sort");
+        } catch (CycleException e) {
+            cycle = e.getCycle();
+        }
+
+        assertThat("Cycle should hold every vertex after the cut", cycle.size(), equalTo(n - n / 2));
+
+        for (int i = 0; i < cycle.size(); i += 1) {
+            Pair<String, String> e = new Pair<String, String>(cycle.get(i), cycle.get((i + 1) % cycle.size()));
+
+            assertThat("Cycle should follow edges of the graph: " + e,
+                    g.getOutgoingEdges(e.first).contains(e), is(true));
+        }
+
+        try {
+            new ListScheduler(g, times, 2);
+            fail("A graph with a cycle should not be scheduled");
+        } catch (CycleException e) {
+            assertThat("Scheduler reports the same cycle", e.getCycle(), equalTo(cycle));
+        }
+
+        g.addEdge(new Pair<String, String>(GraphGenerator.vertex(0), GraphGenerator.vertex(0)));
+
+        try {
+            new ScheduleReport(g, times);
+            fail("A graph with a loop should not be reported on");
+        } catch (CycleException e) {
+            assertThat("Cycle should be nonempty", e.getCycle().isEmpty(), is(false));
+        }
+    }
+
+    /**
+     * Test toposort of the same graph after each of several batches of edge
+     * insertions and deletions, and a DynamicTopologicalOrder given the same
+     * changes. The edges follow a random hidden order, so most of them go
+     * against the order the vertices were added in.
+     */
+    @Test
+    public final void testTopoAfterEdgeUpdates() {
+        IGraph g = TestRunner.newGraph();
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+        Random r = new Random(SEED);
+        int n = LARGE_VERTICES / 4;
+        int batches = 10;
+
+        List<String> hidden = new ArrayList<String>();
+
+        for (int i = 0; i < n; i += 1) {
+            g.addVertex(GraphGenerator.vertex(i));
+            hidden.add(GraphGenerator.vertex(i));
+        }
+
+        Collections.shuffle(hidden, r);
+
+        List<Pair<String, String>> added = new ArrayList<Pair<String, String>>();
+        DynamicTopologicalOrder dynamic = new DynamicTopologicalOrder(g);
+
+        for (int b = 0; b < batches; b += 1) {
+            assertTopologicalOrder(g, topo.topologicalSort(g));
+            assertTopologicalOrder(g, dynamic.getOrder());
+
+            for (int k = 0; k < n / 2; k += 1) {
+                int i = r.nextInt(n - 1);
+                int j = i + 1 + r.nextInt(n - i - 1);
+                Pair<String, String> e = new Pair<String, String>(hidden.get(i), hidden.get(j));
+
+                g.addEdge(e);
+                dynamic.addEdge(e.first, e.second);
+                added.add(e);
+            }
+
+            assertTopologicalOrder(g, topo.topologicalSort(g));
+            assertTopologicalOrder(g, dynamic.getOrder());
+
+            for (int k = 0; k < n / 8; k += 1) {
+                Pair<String, String> e = added.get(r.nextInt(added.size()));
+
+                g.deleteEdge(e);
+                dynamic.deleteEdge(e.first, e.second);
+            }
+        }
+
+        assertTopologicalOrder(g, topo.topologicalSort(g));
+        assertTopologicalOrder(g, dynamic.getOrder());
+
+        Pair<String, String> kept = null;
+
+        for (Pair<String, String> e : added) {
+            if (g.getOutgoingEdges(e.first).contains(e)) {
+                kept = e;
+            }
+        }
+
+        List<String> before = dynamic.getOrder();
+
+        try {
+            dynamic.addEdge(kept.second, kept.first);
+            fail("Reversed edge should close a cycle: " + kept);
+        } catch (CycleException e) {
+            List<String> cycle = e.getCycle();
+
+            assertThat("Cycle should start at the new edge's head", cycle.get(0), equalTo(kept.first));
+            assertThat("Cycle should end at its tail", cycle.get(cycle.size() - 1), equalTo(kept.second));
+
+            for (int i = 0; i + 1 < cycle.size(); i += 1) {
+                Pair<String, String> f = new Pair<String, String>(cycle.get(i), cycle.get(i + 1));
+
+                assertThat("Cycle should follow edges of the graph: " + f,
+                        g.getOutgoingEdges(f.first).contains(f), is(true));
+            }
+        }
+
+        assertThat("Rejected edge should leave the order alone", dynamic.getOrder(), equalTo(before));
+    }
+
+    /**
+     * Test that TopologicalIterator hands out a valid order, and that a
+     * consumer stopping early gets a prefix of one: every vertex it got
+     * came after all of its predecessors.
+     */
+    @Test
+    public final void testTopologicalIterator() {
+        IGraph g = new GraphGenerator(SEED).randomDag(LARGE_VERTICES, 4.0 / LARGE_VERTICES);
+        List<String> order = new ArrayList<String>();
+
+        for (Iterator<String> it = new TopologicalIterator(g); it.hasNext();) {
+            order.add(it.next());
+        }
+
+        assertTopologicalOrder(g, order);
+
+        TopologicalIterator it = new TopologicalIterator(g);
+        HashMap<String, Integer> position = new HashMap<String, Integer>();
+
+        for (int k = 0; k < LARGE_VERTICES / 10; k += 1) {
+            position.put(it.next(), k);
+        }
+
+        for (String v : g.getVertices()) {
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                if (position.containsKey(e.second)) {
+                    assertThat("Predecessor should come first: " + e,
+                            position.containsKey(e.first) && position.get(e.first) < position.get(e.second),
+                            is(true));
+                }
+            }
+        }
+
+        assertThat("Iterator should not be done after a prefix", it.hasNext(), is(true));
+    }
+
+    /**
+     * Test that TopologicalIterator hands out the vertices before a cycle
+     * and then reports the cycle.
+     */
+    @Test
+    public final void testTopologicalIteratorReportsCycle() {
+        int n = LARGE_VERTICES / 20;
+        IGraph g = new GraphGenerator(SEED).chain(n);
+
+        g.addEdge(new Pair<String, String>(GraphGenerator.vertex(n - 1), GraphGenerator.vertex(n / 2)));
+
+        TopologicalIterator it = new TopologicalIterator(g);
+
+        for (int i = 0; i < n / 2; i += 1) {
+            assertThat("Chain before the cycle in order", it.next(), equalTo(GraphGenerator.vertex(i)));
+        }
+
+        try {
+            it.next();
+            fail("The rest of the chain is a cycle");
+        } catch (CycleException e) {
+            assertThat("Cycle should hold every vertex after the cut", e.getCycle().size(), equalTo(n - n / 2));
+        }
+    }
+
+    /**
+     * Test toposort of the same graph before and after deleting a vertex.
+     */
+    @Test
+    public final void testTopoAfterDeletingVertex() {
+        IGraph g = new GraphGenerator(SEED).randomDag(LARGE_VERTICES / 4, 0.05);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+        assertTopologicalOrder(g, topo.topologicalSort(g));
+
+        g.deleteVertex(GraphGenerator.vertex(LARGE_VERTICES / 8));
+
+        assertTopologicalOrder(g, topo.topologicalSort(g));
+
+        g.addVertex(GraphGenerator.vertex(LARGE_VERTICES / 8));
+        g.addEdge(new Pair<String, String>(GraphGenerator.vertex(LARGE_VERTICES / 4 - 1),
+                    GraphGenerator.vertex(LARGE_VERTICES / 8)));
+
+        assertTopologicalOrder(g, topo.topologicalSort(g));
+    }
+
+    /**
+     * Test that the list returned by toposort doesn't change when the graph
+     * changes afterwards, so a lazily filled result can't leak through.
+     */
+    @Test
+    public final void testTopoResultIsSnapshot() {
+        IGraph g = new GraphGenerator(SEED).chain(LARGE_VERTICES);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+        List<String> actual = topo.topologicalSort(g);
+        List<String> expected = new ArrayList<String>(actual);
+
+        g.deleteVertex(GraphGenerator.vertex(0));
+        g.addVertex("A");
+        g.addEdge(new Pair<String, String>("A", GraphGenerator.vertex(1)));
+
+        assertThat("Toposort result shouldn't follow later graph changes", actual, equalTo(expected));
+        assertTopologicalOrder(g, topo.topologicalSort(g));
+    }
+
+    /**
+     * Test condensing a chain of cycles: the condensed graph is a chain, and
+     * its schedule runs every task one after another.
+     */
+    @Test
+    public final void testCondensationOfChainOfCycles() {
+        IGraph g = TestRunner.newGraph();
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+        int cycles = LARGE_VERTICES / 100;
+        int length = 10;
+
+        for (int i = 0; i < cycles * length; i += 1) {
+            g.addVertex(GraphGenerator.vertex(i));
+        }
+
+        for (int c = 0; c < cycles; c += 1) {
+            for (int i = 0; i < length; i += 1) {
+                String v = GraphGenerator.vertex(c * length + i);
+                String u = GraphGenerator.vertex(c * length + (i + 1) % length);
+
+                g.addEdge(new Pair<String, String>(v, u));
+            }
+
+            if (c + 1 < cycles) {
+                g.addEdge(new Pair<String, String>(GraphGenerator.vertex(c * length + length - 1),
+                            GraphGenerator.vertex((c + 1) * length)));
+            }
+        }
+
+        Map<String, Integer> times = new GraphGenerator(SEED).weights(g, MAX_TIME);
+        Condensation condensed = new Condensation(g);
+
+        assertThat("One component per cycle", condensed.size(), equalTo(cycles));
+
+        List<String> order = topo.topologicalSort(condensed.getGraph());
+
+        assertTopologicalOrder(condensed.getGraph(), order);
+
+        for (int c = 0; c < cycles; c += 1) {
+            assertThat("Components should be sorted along the chain", order.get(c),
+                    equalTo(condensed.getComponent(GraphGenerator.vertex(c * length))));
+            assertThat("Component should hold the whole cycle",
+                    condensed.getMembers(order.get(c)).size(), equalTo(length));
+        }
+
+        int expected = 0;
+
+        for (int t : times.values()) {
+            expected += t;
+        }
+
+        int actual = topo.minScheduleLength(condensed.getGraph(), condensed.getTimes(times));
+
+        assertThat("Condensed chain runs every task in turn", actual, equalTo(expected));
+    }
+
+    /**
+     * Test condensing a generated DAG with random back edges added.
+     */
+    @Test
+    public final void testCondensationOfGeneratedGraph() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+        Random r = new Random(SEED);
+
+        IGraph g = gen.randomDag(LARGE_VERTICES, 3.0 / LARGE_VERTICES);
+
+        for (int k = 0; k < LARGE_VERTICES / 10; k += 1) {
+            int i = r.nextInt(LARGE_VERTICES);
+            int j = r.nextInt(LARGE_VERTICES);
+
+            g.addEdge(new Pair<String, String>(GraphGenerator.vertex(Math.max(i, j)),
+                        GraphGenerator.vertex(Math.min(i, j))));
+        }
+
+        Condensation condensed = new Condensation(g);
+        IGraph dag = condensed.getGraph();
+        int members = 0;
+
+        for (String c : dag.getVertices()) {
+            for (String v : condensed.getMembers(c)) {
+                assertThat("Member should belong to its component", condensed.getComponent(v), equalTo(c));
+                members += 1;
+            }
+        }
+
+        assertThat("Every vertex should be in one component", members, equalTo(LARGE_VERTICES));
+        assertThat("Back edges should merge some vertices", condensed.size() < LARGE_VERTICES, is(true));
+
+        for (String v : g.getVertices()) {
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                String from = condensed.getComponent(e.first);
+                String to = condensed.getComponent(e.second);
+
+                if (!from.equals(to)) {
+                    assertThat("Edge between components should be kept: " + e,
+                            dag.getOutgoingEdges(from).contains(new Pair<String, String>(from, to)), is(true));
+                }
+            }
+        }
+
+        assertTopologicalOrder(dag, topo.topologicalSort(dag));
+    }
+
+    /**
+     * Test that the condensed graph is built by the factory it is given.
+     */
+    @Test
+    public final void testCondensationUsesFactory() {
+        IGraph g = new GraphGenerator(SEED).complete(10);
+        final List<IGraph> made = new ArrayList<IGraph>();
+
+        Condensation condensed = new Condensation(g, 1, new GraphFactory() {
+            public IGraph newGraph() {
+                IGraph h = new ConcurrentGraph();
+
+                made.add(h);
+                return h;
+            }
+        });
+
+        assertThat("One graph made", made.size(), equalTo(1));
+        assertThat("Condensed graph comes from the factory", condensed.getGraph() == made.get(0), is(true));
+        assertThat("A complete graph is one component", condensed.getGraph().getVertices().size(), equalTo(1));
+    }
+
+    /**
+     * Test that the parallel forward-backward search finds the same
+     * components as Tarjan's algorithm, on graphs large enough to be split
+     * across threads: a DAG with random back edges, which trimming mostly
+     * takes apart, and separate chains of cycles, which trimming can't touch
+     * and which leave vertices outside both searches.
+     */
+    @Test
+    public final void testParallelCondensationMatchesTarjan() {
+        int n = LARGE_VERTICES * 10;
+        int length = 10;
+        int chains = 4;
+        Random r = new Random(SEED);
+        IGraph cyclic = new GraphGenerator(SEED).randomDag(n, 3.0 / n);
+        IGraph chain = TestRunner.newGraph();
+
+        for (int k = 0; k < n / 20; k += 1) {
+            int i = r.nextInt(n);
+            int j = r.nextInt(n);
+
+            cyclic.addEdge(new Pair<String, String>(GraphGenerator.vertex(Math.max(i, j)),
+                        GraphGenerator.vertex(Math.min(i, j))));
+        }
+
+        for (int i = 0; i < n; i += 1) {
+            chain.addVertex(GraphGenerator.vertex(i));
+        }
+
+        for (int i = 0; i < n; i += 1) {
+            int first = i - i % length;
+
+            chain.addEdge(new Pair<String, String>(GraphGenerator.vertex(i),
+                        GraphGenerator.vertex(first + (i + 1) % length)));
+
+            if (i % length == length - 1 && (i + 1) % (n / chains) != 0) {
+                chain.addEdge(new Pair<String, String>(GraphGenerator.vertex(i), GraphGenerator.vertex(i + 1)));
+            }
+        }
+
+        for (IGraph g : Arrays.asList(cyclic, chain)) {
+            Condensation sequential = new Condensation(g, 1);
+            Condensation parallel = new Condensation(g, 4);
+
+            assertThat("Same number of components", parallel.size(), equalTo(sequential.size()));
+
+            for (String v : g.getVertices()) {
+                assertThat("Same component for " + v, parallel.getComponent(v),
+                        equalTo(sequential.getComponent(v)));
+            }
+        }
+
+        assertThat("One component per cycle", new Condensation(chain, 4).size(), equalTo(n / length));
+    }
+
+    /**
+     * Test that ParallelScheduleLength gives the generator's answer on a DAG
+     * with frontiers wide enough to go to the pool, on one with narrow
+     * frontiers that stay on the calling thread, and on one thread.
+     */
+    @Test
+    public final void testParallelScheduleLength() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph wide = gen.layeredDag(6, 2 * ParallelScheduleLength.SEQUENTIAL_WIDTH, 3);
+        IGraph narrow = gen.randomDag(LARGE_VERTICES, 4.0 / LARGE_VERTICES);
+
+        for (IGraph g : Arrays.asList(wide, narrow)) {
+            Map<String, Integer> times = gen.weights(g, MAX_TIME);
+            int expected = generatedScheduleLength(g, times);
+
+            assertThat("Parallel schedule length", new ParallelScheduleLength(g, times, 4).getMakespan(),
+                    equalTo(expected));
+            assertThat("Schedule length on one thread", new ParallelScheduleLength(g, times, 1).getMakespan(),
+                    equalTo(expected));
+        }
+    }
+
+    /**
+     * Test that ParallelScheduleLength reports a cycle and needs a thread.
+     */
+    @Test
+    public final void testParallelScheduleLengthRejectsBadInput() {
+        IGraph g = new GraphGenerator(SEED).complete(3);
+        HashMap<String, Integer> times = new HashMap<String, Integer>();
+
+        for (String v : g.getVertices()) {
+            times.put(v, 1);
+        }
+
+        try {
+            new ParallelScheduleLength(g, times, 4);
+            fail("A graph with a cycle has no schedule");
+        } catch (CycleException e) {
+            assertThat("Cycle should be nonempty", e.getCycle().isEmpty(), is(false));
+        }
+
+        try {
+            new ParallelScheduleLength(TestRunner.newGraph(), times, 0);
+            fail("No threads should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertThat("Not a cycle", e instanceof CycleException, is(false));
+        }
+    }
+
+    /**
+     * Test that list scheduling with a worker per task gives the same answer
+     * as minScheduleLength.
+     */
+    @Test
+    public final void testListSchedulerUnlimitedWorkers() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+        IGraph g = gen.layeredDag(8, LARGE_VERTICES / 8, 3);
+        Map<String, Integer> times = gen.weights(g, MAX_TIME);
+
+        ListScheduler schedule = new ListScheduler(g, times, LARGE_VERTICES);
+
+        assertValidSchedule(g, times, schedule, LARGE_VERTICES);
+        assertThat("Enough workers reduce to minScheduleLength", schedule.getMakespan(),
+                equalTo(topo.minScheduleLength(g, times)));
+    }
+
+    /**
+     * Test list scheduling with one worker and with a few workers.
+     */
+    @Test
+    public final void testListSchedulerFewWorkers() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+
+        IGraph g = gen.randomDag(LARGE_VERTICES, 4.0 / LARGE_VERTICES);
+        Map<String, Integer> times = gen.weights(g, MAX_TIME);
+        int total = 0;
+
+        for (int t : times.values()) {
+            total += t;
+        }
+
+        ListScheduler schedule = new ListScheduler(g, times, 1);
+
+        assertValidSchedule(g, times, schedule, 1);
+        assertThat("One worker runs every task in turn", schedule.getMakespan(), equalTo(total));
+
+        int workers = 4;
+        int critical = generatedScheduleLength(g, times);
+
+        schedule = new ListScheduler(g, times, workers);
+
+        assertValidSchedule(g, times, schedule, workers);
+        assertThat("Makespan is at least the critical path", schedule.getMakespan() >= critical, is(true));
+        assertThat("Makespan is at least the work per worker", schedule.getMakespan() >= total / workers, is(true));
+        assertThat("Makespan is within Graham's bound", schedule.getMakespan() <= total / workers + critical, is(true));
+    }
+
+    /**
+     * Test that a schedule without workers is rejected.
+     */
+    @Test
+    public final void testListSchedulerNeedsAWorker() {
+        IGraph g = TestRunner.newGraph();
+        HashMap<String, Integer> times = new HashMap<String, Integer>();
+
+        g.addVertex("A");
+        times.put("A", 1);
+
+        try {
+            new ListScheduler(g, times, 0);
+            fail("No workers should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertThat("Message names the count", e.getMessage().contains("0"), is(true));
+        }
+    }
+
+    /**
+     * Test the critical path and slack of the graph from
+     * testSchedulingWithLargeChild.
+     */
+    @Test
+    public final void testScheduleReportWithLargeChild() {
+        IGraph g = TestRunner.newGraph();
+        HashMap<String, Integer> times = new HashMap<String, Integer>();
+
+        String v1 = "A";
+        String v2 = "B";
+        String v3 = "C";
+        String v4 = "D";
+
+        g.addVertex(v1);
+        g.addVertex(v2);
+        g.addVertex(v3);
+        g.addVertex(v4);
+
+        times.put(v1, 2);
+        times.put(v2, 2);
+        times.put(v3, 8);
+        times.put(v4, 10);
+
+        g.addEdge(new Pair<String, String>(v1, v2));
+        g.addEdge(new Pair<String, String>(v1, v3));
+        g.addEdge(new Pair<String, String>(v2, v4));
+
+        ScheduleReport report = new ScheduleReport(g, times);
+
+        assertThat("Makespan should be 2 + max(2 + 10, 8)", report.getMakespan(), equalTo(14));
+        assertThat("Critical path", report.getCriticalPath(), equalTo(Arrays.asList(v1, v2, v4)));
+        assertThat("C can start at 2", report.getEarliestStart(v3), equalTo(2));
+        assertThat("C can start as late as 6", report.getLatestStart(v3), equalTo(6));
+        assertThat("C has 4 slack", report.getSlack(v3), equalTo(4));
+        assertThat("D has no slack", report.getSlack(v4), equalTo(0));
+    }
+
+    /**
+     * Test the schedule report of a generated DAG against minScheduleLength.
+     */
+    @Test
+    public final void testScheduleReportGeneratedDag() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+        IGraph g = gen.randomDag(LARGE_VERTICES, 4.0 / LARGE_VERTICES);
+        Map<String, Integer> times = gen.weights(g, MAX_TIME);
+
+        ScheduleReport report = new ScheduleReport(g, times);
+
+        assertThat("Makespan should match minScheduleLength", report.getMakespan(),
+                equalTo(topo.minScheduleLength(g, times)));
+
+        List<String> path = report.getCriticalPath();
+        int length = 0;
+
+        for (int i = 0; i < path.size(); i += 1) {
+            length += times.get(path.get(i));
+
+            assertThat("Critical task has no slack", report.getSlack(path.get(i)), equalTo(0));
+
+            if (i + 1 < path.size()) {
+                Pair<String, String> e = new Pair<String, String>(path.get(i), path.get(i + 1));
+
+                assertThat("Critical path should follow edges: " + e,
+                        g.getOutgoingEdges(e.first).contains(e), is(true));
+            }
+        }
+
+        assertThat("Critical path takes the whole makespan", length, equalTo(report.getMakespan()));
+
+        for (String v : g.getVertices()) {
+            assertThat("Slack is never negative: " + v, report.getSlack(v) >= 0, is(true));
+        }
+    }
+
+    /**
+     * Test that IncrementalSchedule keeps matching minScheduleLength through
+     * random time changes, edge insertions and edge deletions.
+     */
+    @Test
+    public final void testIncrementalScheduleMatchesMinScheduleLength() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+        Random random = new Random(SEED);
+        int n = 300;
+
+        IGraph g = gen.randomDag(n, 4.0 / n);
+        Map<String, Integer> times = gen.weights(g, MAX_TIME);
+        IncrementalSchedule schedule = new IncrementalSchedule(g, times);
+
+        assertThat("Initial makespan", schedule.getMakespan(),
+                equalTo(topo.minScheduleLength(g, times)));
+
+        for (int step = 0; step < n; step += 1) {
+            String v = GraphGenerator.vertex(random.nextInt(n));
+            String change;
+
+            if (step % 3 == 0) {
+                int time = 1 + random.nextInt(MAX_TIME);
+
+                change = "time of " + v + " = " + time;
+                times.put(v, time);
+                schedule.setTime(v, time);
+            } else if (step % 3 == 1 || g.getOutgoingEdges(v).isEmpty()) {
+                int i = GraphGenerator.index(v);
+                int j = i + 1 + random.nextInt(n - i);
+
+                if (j == n) {
+                    continue;
+                }
+
+                String u = GraphGenerator.vertex(j);
+
+                change = "add " + v + " -> " + u;
+                g.addEdge(new Pair<String, String>(v, u));
+                schedule.addEdge(v, u);
+            } else {
+                Pair<String, String> e = g.getOutgoingEdges(v).iterator().next();
+
+                change = "delete " + e;
+                g.deleteEdge(e);
+                schedule.deleteEdge(e.first, e.second);
+            }
+
+            assertThat("Makespan after " + change, schedule.getMakespan(),
+                    equalTo(topo.minScheduleLength(g, times)));
+            assertTopologicalOrder(g, schedule.getOrder());
+        }
+    }
+
+    /**
+     * Test that IncrementalSchedule rejects an edge that closes a cycle and
+     * keeps working afterwards.
+     */
+    @Test
+    public final void testIncrementalScheduleRejectsCycle() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        IGraph g = gen.chain(3);
+        HashMap<String, Integer> times = new HashMap<String, Integer>();
+
+        times.put("v0", 1);
+        times.put("v1", 2);
+        times.put("v2", 3);
+
+        IncrementalSchedule schedule = new IncrementalSchedule(g, times);
+        boolean rejected = false;
+
+        try {
+            schedule.addEdge("v2", "v0");
+        } catch (CycleException e) {
+            rejected = true;
+            assertThat("The cycle the edge closes", e.getCycle(), equalTo(Arrays.asList("v0", "v1", "v2")));
+        }
+
+        assertThat("Edge closing a cycle should be rejected", rejected, is(true));
+        assertThat("Makespan should be unchanged", schedule.getMakespan(), equalTo(6));
+
+        schedule.deleteEdge("v0", "v1");
+        schedule.addEdge("v2", "v0");
+
+        assertThat("v1 -> v2 -> v0 once v0 -> v1 is gone", schedule.getMakespan(), equalTo(6));
+        assertThat("v0 now finishes last", schedule.getFinish("v0"), equalTo(6));
+    }
+
     /**
      * Test paralell scheduling with empty graph.
      */
@@ -701,4 +1670,59 @@ public class TestTopologicalSort {
 
         assertThat("Minimum schedule should be 2 + max(2 + 10, 8)", actual, equalTo(expected));
     }
+
+    /**
+     * Test scheduling on a generated DAG that is much wider than it is deep.
+     */
+    @Test
+    public final void testSchedulingGeneratedWideDag() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+        IGraph g = gen.layeredDag(4, LARGE_VERTICES / 4, 3);
+        Map<String, Integer> times = gen.weights(g, MAX_TIME);
+
+        int expected = generatedScheduleLength(g, times);
+        int actual = topo.minScheduleLength(g, times);
+
+        assertThat("Minimum schedule of wide DAG", actual, equalTo(expected));
+
+        g = gen.fanOut(LARGE_VERTICES);
+        times = gen.weights(g, MAX_TIME);
+
+        expected = generatedScheduleLength(g, times);
+        actual = topo.minScheduleLength(g, times);
+
+        assertThat("Minimum schedule of fan-out", actual, equalTo(expected));
+    }
+
+    /**
+     * Test scheduling on generated narrow and random DAGs.
+     */
+    @Test
+    public final void testSchedulingGeneratedDeepDag() {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+
+        IGraph g = gen.chain(LARGE_VERTICES);
+        Map<String, Integer> times = gen.weights(g, MAX_TIME);
+
+        int expected = 0;
+
+        for (int t : times.values()) {
+            expected += t;
+        }
+
+        int actual = topo.minScheduleLength(g, times);
+
+        assertThat("Minimum schedule of chain is the sum of its times", actual, equalTo(expected));
+
+        g = gen.randomDag(LARGE_VERTICES, 4.0 / LARGE_VERTICES);
+        times = gen.weights(g, MAX_TIME);
+
+        expected = generatedScheduleLength(g, times);
+        actual = topo.minScheduleLength(g, times);
+
+        assertThat("Minimum schedule of random DAG", actual, equalTo(expected));
+    }
 }
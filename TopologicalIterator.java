@@ -0,0 +1,135 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+
+/**
+ * Kahn's algorithm run lazily: each call to next() hands out one vertex
+ * whose predecessors have all been handed out, and only then counts down
+ * the in-degrees of its successors. A consumer can start on the first
+ * vertices right away and stop at any point without paying for the rest of
+ * the sort.
+ *
+ * Besides the IndexedGraph it reads, the iterator holds only a copy of the
+ * in-degrees and the frontier of vertices whose in-degree has reached zero.
+ * The frontier is a ring buffer that grows to the widest frontier seen, not
+ * to the number of vertices. On a graph with a cycle the vertices outside
+ * it are handed out, and then next() throws a CycleException naming it.
+ */
+public final class TopologicalIterator implements Iterator<String> {
+    /** The graph being sorted. */
+    private final IndexedGraph mGraph;
+
+    /** In-degree of every vertex, counting only predecessors not handed out yet. */
+    private final int[] mWaiting;
+
+    /** Vertices ready to be handed out, from mHead on, wrapping around. */
+    private int[] mFrontier;
+
+    /** Position of the first frontier vertex. */
+    private int mHead;
+
+    /** Number of frontier vertices. */
+    private int mSize;
+
+    /** Number of vertices not handed out yet. */
+    private int mLeft;
+
+    /**
+     * Sort a graph.
+     * @param g DAG to sort
+     */
+    public TopologicalIterator(final IGraph g) {
+        this(IndexedGraph.of(g));
+    }
+
+    /**
+     * Sort a snapshot.
+     * @param g DAG to sort
+     */
+    public TopologicalIterator(final IndexedGraph g) {
+        mGraph = g;
+        mWaiting = g.inDegrees();
+        mFrontier = new int[16];
+        mLeft = mWaiting.length;
+
+        for (int v = 0; v < mWaiting.length; v += 1) {
+            if (mWaiting[v] == 0) {
+                push(v);
+            }
+        }
+    }
+
+    /**
+     * @return True until every vertex has been handed out, even if a cycle
+     *         will stop the next call to next()
+     */
+    public boolean hasNext() {
+        return mLeft > 0;
+    }
+
+    /**
+     * @return Name of the next vertex in topological order
+     * @throws NoSuchElementException If every vertex has been handed out
+     * @throws CycleException If the vertices left are all on or after a cycle
+     */
+    public String next() {
+        return mGraph.getVertex(nextIndex());
+    }
+
+    /**
+     * @return Id of the next vertex in topological order
+     * @throws NoSuchElementException If every vertex has been handed out
+     * @throws CycleException If the vertices left are all on or after a cycle
+     */
+    public int nextIndex() {
+        if (mLeft == 0) {
+            throw new NoSuchElementException();
+        }
+
+        if (mSize == 0) {
+            throw new CycleException(mGraph.findCycle(mWaiting));
+        }
+
+        int v = mFrontier[mHead];
+
+        mHead = (mHead + 1) % mFrontier.length;
+        mSize -= 1;
+        mLeft -= 1;
+
+        for (int u : mGraph.getSuccessors(v)) {
+            mWaiting[u] -= 1;
+
+            if (mWaiting[u] == 0) {
+                push(u);
+            }
+        }
+
+        return v;
+    }
+
+    /**
+     * Vertices can't be removed from the order.
+     */
+    public void remove() {
+        throw new UnsupportedOperationException("Topological order is read only");
+    }
+
+    /**
+     * Add a vertex to the end of the frontier, doubling the ring buffer if
+     * it is full.
+     * @param v Vertex id
+     */
+    private void push(final int v) {
+        if (mSize == mFrontier.length) {
+            int[] larger = Arrays.copyOf(mFrontier, 2 * mSize);
+
+            System.arraycopy(mFrontier, 0, larger, mSize, mHead);
+            mFrontier = larger;
+        }
+
+        mFrontier[(mHead + mSize) % mFrontier.length] = v;
+        mSize += 1;
+    }
+}
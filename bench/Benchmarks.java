@@ -0,0 +1,436 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.iastate.cs311.f13.hw6.IGraph;
+import edu.iastate.cs311.f13.hw6.IGraph.Pair;
+import edu.iastate.cs311.f13.hw6.IMaxFlowAlgorithms;
+import edu.iastate.cs311.f13.hw6.ITopologicalSortAlgorithms;
+
+/**
+ * Simple timing harness for the IGraph, ITopologicalSortAlgorithms and
+ * IMaxFlowAlgorithms implementations returned by TestRunner.
+ *
+ * The graphs come from GraphGenerator: a random DAG for the graph and
+ * topological sort benchmarks and a layered flow network for the max flow
+ * benchmarks. Every benchmark gets a few untimed warmup runs so the JIT has a
+ * chance to compile the hot paths, followed by the timed runs. The graph size
+ * and density are set with system properties, see `ant bench` in build.xml.
+ */
+public final class Benchmarks {
+    /** Largest capacity or task time handed out. */
+    private static final int MAX_WEIGHT = 100;
+
+    /** Number of (source, sink) pairs in the batch max flow benchmarks. */
+    private static final int BATCH_SIZE = 10;
+
+    /** Nanoseconds per millisecond. */
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    /** Number of vertices in each generated graph. */
+    private final int mVertices;
+
+    /** Average number of outgoing edges per vertex. */
+    private final int mDensity;
+
+    /** Untimed runs before measuring. */
+    private final int mWarmup;
+
+    /** Timed runs. */
+    private final int mIterations;
+
+    /** Seed for the random graphs, so runs are comparable. */
+    private final long mSeed;
+
+    /** Only run benchmarks whose name contains this, if not empty. */
+    private final String mOnly;
+
+    /**
+     * A single thing to time.
+     */
+    private abstract static class Task {
+        /** Name printed in the report. */
+        private final String mName;
+
+        /**
+         * @param name Name printed in the report
+         */
+        Task(final String name) {
+            mName = name;
+        }
+
+        /**
+         * Untimed preparation done before every run.
+         */
+        void setUp() {
+        }
+
+        /**
+         * The code being timed.
+         */
+        abstract void run();
+    }
+
+    /**
+     * Read the benchmark settings.
+     */
+    private Benchmarks() {
+        mVertices = Integer.getInteger("bench.vertices", 1000);
+        mDensity = Integer.getInteger("bench.density", 4);
+        mWarmup = Integer.getInteger("bench.warmup", 3);
+        mIterations = Integer.getInteger("bench.iterations", 5);
+        mSeed = Long.getLong("bench.seed", 311L);
+        mOnly = System.getProperty("bench.only", "");
+    }
+
+    /**
+     * Add every edge of one graph to a new graph with the same vertices.
+     * @param g Graph to copy
+     * @return The copy
+     */
+    private static IGraph copy(final IGraph g) {
+        IGraph h = TestRunner.newGraph();
+
+        for (String v : g.getVertices()) {
+            h.addVertex(v);
+        }
+
+        for (String v : g.getVertices()) {
+            for (Pair<String, String> e : g.getOutgoingEdges(v)) {
+                h.addEdge(e);
+            }
+        }
+
+        return h;
+    }
+
+    /**
+     * Time a task and print the result.
+     * @param task Task to time
+     */
+    private void measure(final Task task) {
+        if (mOnly.length() > 0 && !task.mName.contains(mOnly)) {
+            return;
+        }
+
+        for (int i = 0; i < mWarmup; i += 1) {
+            task.setUp();
+            task.run();
+        }
+
+        long total = 0;
+        long best = Long.MAX_VALUE;
+
+        for (int i = 0; i < mIterations; i += 1) {
+            task.setUp();
+
+            long start = System.nanoTime();
+            task.run();
+            long elapsed = System.nanoTime() - start;
+
+            total += elapsed;
+            best = Math.min(best, elapsed);
+        }
+
+        System.out.println(String.format("%-32s avg %10.3f ms   min %10.3f ms",
+                    task.mName,
+                    total / NANOS_PER_MILLI / mIterations,
+                    best / NANOS_PER_MILLI));
+    }
+
+    /**
+     * Run every benchmark.
+     */
+    private void runAll() {
+        GraphGenerator gen = new GraphGenerator(mSeed);
+
+        final IGraph dag = gen.randomDag(mVertices, (double) mDensity / mVertices * 2);
+        final Map<String, Integer> times = gen.weights(dag, MAX_WEIGHT);
+
+        int width = Math.max(1, (int) Math.sqrt(mVertices));
+
+        final IGraph network = gen.flowNetwork(Math.max(1, mVertices / width), width, mDensity);
+        final Map<Pair<String, String>, Integer> capacities = gen.capacities(network, MAX_WEIGHT);
+        final Map<String, Integer> vertexCapacities = gen.weights(network, MAX_WEIGHT);
+        final Map<Pair<String, String>, Integer> costs = gen.capacities(network, MAX_WEIGHT);
+
+        final String s = GraphGenerator.SOURCE;
+        final String t = GraphGenerator.SINK;
+
+        final ITopologicalSortAlgorithms topo = TestRunner.newTopoSort();
+        final IMaxFlowAlgorithms max = TestRunner.newMaxFlow();
+
+        System.out.println("DAG: " + mVertices + " vertices, " + GraphGenerator.edgeCount(dag) + " edges; "
+                + "flow network: " + network.getVertices().size() + " vertices, "
+                + GraphGenerator.edgeCount(network) + " edges; "
+                + "warmup: " + mWarmup + ", iterations: " + mIterations);
+
+        measure(new Task("addVertex") {
+            void run() {
+                IGraph g = TestRunner.newGraph();
+
+                for (String v : dag.getVertices()) {
+                    g.addVertex(v);
+                }
+            }
+        });
+
+        measure(new Task("addVertex+addEdge") {
+            void run() {
+                copy(dag);
+            }
+        });
+
+        measure(new Task("deleteVertex") {
+            private IGraph mGraph;
+
+            void setUp() {
+                mGraph = copy(dag);
+            }
+
+            void run() {
+                for (String v : dag.getVertices()) {
+                    mGraph.deleteVertex(v);
+                }
+            }
+        });
+
+        final IGraph fan = gen.fanOut(mVertices);
+        final String hub = GraphGenerator.vertex(mVertices + 1);
+
+        measure(new Task("deleteVertex(hub)") {
+            private IGraph mGraph;
+
+            void setUp() {
+                mGraph = copy(fan);
+            }
+
+            void run() {
+                for (int i = 1; i <= mVertices; i += 1) {
+                    mGraph.deleteVertex(hub);
+                    mGraph.addVertex(hub);
+                    mGraph.addEdge(new Pair<String, String>(GraphGenerator.vertex(i), hub));
+                }
+            }
+        });
+
+        measure(new Task("topologicalSort") {
+            void run() {
+                topo.topologicalSort(dag);
+            }
+        });
+
+        measure(new Task("minScheduleLength") {
+            void run() {
+                topo.minScheduleLength(dag, times);
+            }
+        });
+
+        measure(new Task("parallelScheduleLength(4 threads)") {
+            void run() {
+                new ParallelScheduleLength(dag, times, 4);
+            }
+        });
+
+        measure(new Task("freeze") {
+            void run() {
+                FrozenGraph.freeze(dag);
+            }
+        });
+
+        measure(new Task("topologicalSort(frozen)") {
+            /** Frozen copy of the DAG, made once. */
+            private FrozenGraph mFrozen;
+
+            void setUp() {
+                if (mFrozen == null) {
+                    mFrozen = FrozenGraph.freeze(dag);
+                }
+            }
+
+            void run() {
+                topo.topologicalSort(mFrozen);
+            }
+        });
+
+        measure(new Task("incrementalSetTime(x1000)") {
+            /** Schedule built once and updated by every run. */
+            private IncrementalSchedule mSchedule;
+
+            /** Last task whose time was changed. */
+            private int mNext;
+
+            void setUp() {
+                if (mSchedule == null) {
+                    mSchedule = new IncrementalSchedule(dag, times);
+                }
+            }
+
+            void run() {
+                for (int i = 0; i < 1000; i += 1) {
+                    mNext = (mNext + 7919) % mVertices;
+                    mSchedule.setTime(GraphGenerator.vertex(mNext), 1 + mNext % MAX_WEIGHT);
+                }
+            }
+        });
+
+        // Below Condensation.SEQUENTIAL_SIZE vertices every thread count runs
+        // Tarjan's algorithm on the calling thread, so the graph is kept
+        // large enough to be split.
+        final int cyclicVertices = Math.max(mVertices, 4 * Condensation.SEQUENTIAL_SIZE);
+        final IGraph cyclic = cyclicVertices == mVertices ? copy(dag)
+            : gen.randomDag(cyclicVertices, (double) mDensity / cyclicVertices * 2);
+        Random r = new Random(mSeed);
+
+        for (int k = 0; k < cyclicVertices / 10; k += 1) {
+            int i = r.nextInt(cyclicVertices);
+            int j = r.nextInt(cyclicVertices);
+
+            cyclic.addEdge(new Pair<String, String>(GraphGenerator.vertex(Math.max(i, j)),
+                        GraphGenerator.vertex(Math.min(i, j))));
+        }
+
+        final FrozenGraph frozenCyclic = FrozenGraph.freeze(cyclic);
+
+        measure(new Task("condensation(1 thread)") {
+            void run() {
+                new Condensation(frozenCyclic, 1);
+            }
+        });
+
+        measure(new Task("condensation(4 threads)") {
+            void run() {
+                new Condensation(frozenCyclic, 4);
+            }
+        });
+
+        measure(new Task("listSchedule(4 workers)") {
+            void run() {
+                new ListScheduler(dag, times, 4);
+            }
+        });
+
+        measure(new Task("listSchedule(frozen, 8 workers)") {
+            /** Frozen copy of the DAG, made once. */
+            private FrozenGraph mFrozen;
+
+            void setUp() {
+                if (mFrozen == null) {
+                    mFrozen = FrozenGraph.freeze(dag);
+                }
+            }
+
+            void run() {
+                new ListScheduler(mFrozen, times, 8);
+            }
+        });
+
+        measure(new Task("maxFlow") {
+            void run() {
+                max.maxFlow(network, s, t, capacities);
+            }
+        });
+
+        final MaxFlowEngine engine = new MaxFlowEngine();
+
+        measure(new Task("maxFlow(dinic)") {
+            void run() {
+                engine.maxFlow(network, s, t, capacities, MaxFlowEngine.Engine.DINIC);
+            }
+        });
+
+        measure(new Task("maxFlow(push-relabel)") {
+            void run() {
+                engine.maxFlow(network, s, t, capacities, MaxFlowEngine.Engine.PUSH_RELABEL);
+            }
+        });
+
+        measure(new Task("minCostFlow") {
+            void run() {
+                new MinCostFlow(network, s, t, capacities, costs);
+            }
+        });
+
+        final List<Pair<String, String>> pairs = new ArrayList<Pair<String, String>>();
+
+        for (int i = 0; i < BATCH_SIZE; i += 1) {
+            pairs.add(new Pair<String, String>(s, t));
+        }
+
+        measure(new Task("maxFlow(x" + BATCH_SIZE + ")") {
+            void run() {
+                for (Pair<String, String> pair : pairs) {
+                    engine.maxFlow(network, pair.first, pair.second, capacities);
+                }
+            }
+        });
+
+        measure(new Task("MaxFlowBatch(x" + BATCH_SIZE + ")") {
+            void run() {
+                new MaxFlowBatch(network, capacities).maxFlowValues(pairs);
+            }
+        });
+
+        measure(new Task("MaxFlowBatch(x" + BATCH_SIZE + ", 4 threads)") {
+            void run() {
+                new MaxFlowBatch(network, capacities).maxFlowValues(pairs, 4);
+            }
+        });
+
+        measure(new Task("sessionSetCapacity(x100)") {
+            /** Session built once and updated by every run. */
+            private MaxFlowSession mSession;
+
+            /** Last edge whose capacity was changed. */
+            private int mNext;
+
+            void setUp() {
+                if (mSession == null) {
+                    mSession = new MaxFlowSession(network, s, t, capacities);
+                }
+            }
+
+            void run() {
+                int edges = mSession.getEdges().size();
+
+                for (int i = 0; i < 100; i += 1) {
+                    mNext = (mNext + 7919) % edges;
+                    mSession.setCapacity(mNext, i % 2 == 0 ? mSession.getFlow(mNext) / 2 : MAX_WEIGHT);
+                }
+            }
+        });
+
+        measure(new Task("maxFlowWithVertexCapacities") {
+            void run() {
+                max.maxFlowWithVertexCapacities(network, s, t, vertexCapacities);
+            }
+        });
+
+        measure(new Task("maxFlowWithVertexCapacities(engine)") {
+            void run() {
+                engine.maxFlowWithVertexCapacities(network, s, t, vertexCapacities);
+            }
+        });
+
+        measure(new Task("maxVertexDisjointPaths") {
+            void run() {
+                max.maxVertexDisjointPaths(network, s, t);
+            }
+        });
+
+        measure(new Task("maxVertexDisjointPaths(engine)") {
+            void run() {
+                engine.maxVertexDisjointPaths(network, s, t);
+            }
+        });
+    }
+
+    /**
+     * Entry point used by `ant bench`.
+     * @param args Unused
+     */
+    public static void main(final String[] args) {
+        new Benchmarks().runAll();
+    }
+}